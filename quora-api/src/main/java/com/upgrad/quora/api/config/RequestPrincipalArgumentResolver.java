@@ -0,0 +1,41 @@
+package com.upgrad.quora.api.config;
+
+import com.upgrad.quora.service.business.PrincipalResolver;
+import com.upgrad.quora.service.business.RequestPrincipal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Passes the RequestPrincipal of the request to controller method parameters of that type.
+ * The principal resolved by the RequestPrincipalFilter is reused; should the filter not have run, the access token
+ * of the authorization header is resolved here. The principal of a request without a valid token is not signed in,
+ * so the services reject it with ATHR-001.
+ */
+@Component
+public class RequestPrincipalArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Autowired
+    private PrincipalResolver principalResolver;
+
+    @Override
+    public boolean supportsParameter(final MethodParameter parameter) {
+        return RequestPrincipal.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(final MethodParameter parameter, final ModelAndViewContainer mavContainer,
+                                  final NativeWebRequest webRequest, final WebDataBinderFactory binderFactory) {
+        Object resolved = webRequest.getAttribute(PrincipalResolver.PRINCIPAL_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (resolved instanceof RequestPrincipal) {
+            return resolved;
+        }
+        return principalResolver.resolve(RequestPrincipalFilter.accessToken(webRequest.getHeader(HttpHeaders.AUTHORIZATION)));
+    }
+}
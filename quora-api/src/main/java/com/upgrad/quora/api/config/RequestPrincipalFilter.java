@@ -0,0 +1,55 @@
+package com.upgrad.quora.api.config;
+
+import com.upgrad.quora.service.business.PrincipalResolver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Resolves the access token of the authorization header once per request, before the request reaches a controller.
+ * The resolved RequestPrincipal is kept as a request attribute by the PrincipalResolver, from where the
+ * RequestPrincipalArgumentResolver passes it to the controllers.
+ * Requests without an authorization header and sign in requests with Basic credentials are passed on unresolved.
+ */
+@Component
+public class RequestPrincipalFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private static final String BASIC_PREFIX = "Basic ";
+
+    @Autowired
+    private PrincipalResolver principalResolver;
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response, final FilterChain filterChain)
+            throws ServletException, IOException {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization != null && !authorization.regionMatches(true, 0, BASIC_PREFIX, 0, BASIC_PREFIX.length())) {
+            principalResolver.resolve(accessToken(authorization));
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * @param authorization value of the authorization header, either "Bearer &lt;access token&gt;" or the bare access token
+     * @return the access token, or null if there is no header
+     */
+    public static String accessToken(final String authorization) {
+        if (authorization == null) {
+            return null;
+        }
+        String token = authorization.trim();
+        if (token.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            token = token.substring(BEARER_PREFIX.length()).trim();
+        }
+        return token;
+    }
+}
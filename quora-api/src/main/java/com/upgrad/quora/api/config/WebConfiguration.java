@@ -0,0 +1,53 @@
+package com.upgrad.quora.api.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewFilter;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * This Configuration resolves the RequestPrincipal of every request in the RequestPrincipalFilter and passes it to the
+ * controllers. The request keeps one persistence context open from before the RequestPrincipalFilter until the response
+ * is written, which replaces the open-in-view interceptor Spring Boot registers otherwise, so the user of the access
+ * token is loaded into the same persistence context as the entities of the request.
+ */
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+
+    //right after the RequestContextFilter, which Spring Boot orders at -105
+    private static final int OPEN_ENTITY_MANAGER_IN_VIEW_FILTER_ORDER = -104;
+
+    private static final int REQUEST_PRINCIPAL_FILTER_ORDER = OPEN_ENTITY_MANAGER_IN_VIEW_FILTER_ORDER + 1;
+
+    @Autowired
+    private RequestPrincipalArgumentResolver requestPrincipalArgumentResolver;
+
+    @Override
+    public void addArgumentResolvers(final List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(requestPrincipalArgumentResolver);
+    }
+
+    @Bean
+    public OpenEntityManagerInViewFilter openEntityManagerInViewFilter() {
+        return new OpenEntityManagerInViewFilter();
+    }
+
+    @Bean
+    public FilterRegistrationBean<OpenEntityManagerInViewFilter> openEntityManagerInViewFilterRegistration(final OpenEntityManagerInViewFilter filter) {
+        FilterRegistrationBean<OpenEntityManagerInViewFilter> registration = new FilterRegistrationBean<OpenEntityManagerInViewFilter>(filter);
+        registration.setOrder(OPEN_ENTITY_MANAGER_IN_VIEW_FILTER_ORDER);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<RequestPrincipalFilter> requestPrincipalFilterRegistration(final RequestPrincipalFilter filter) {
+        FilterRegistrationBean<RequestPrincipalFilter> registration = new FilterRegistrationBean<RequestPrincipalFilter>(filter);
+        registration.setOrder(REQUEST_PRINCIPAL_FILTER_ORDER);
+        return registration;
+    }
+}
@@ -2,6 +2,7 @@ package com.upgrad.quora.api.controller;
 
 import com.upgrad.quora.api.model.UserDeleteResponse;
 import com.upgrad.quora.service.business.AdminService;
+import com.upgrad.quora.service.business.RequestPrincipal;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
@@ -22,11 +23,11 @@ public class AdminController {
             path = "/admin/user/{userId}",
             produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
     public ResponseEntity<UserDeleteResponse> deleteUser(
-            @RequestHeader("authorization") final String accessToken,
+            final RequestPrincipal principal,
             @PathVariable("userId") String userId)
             throws AuthorizationFailedException, UserNotFoundException {
 
-        UserEntity userEntity = adminService.deleteUser(userId, accessToken);
+        UserEntity userEntity = adminService.deleteUser(userId, principal);
 
         UserDeleteResponse userDeleteResponse =
                 new UserDeleteResponse().id(userEntity.getUuid()).status("USER SUCCESSFULLY DELETED");
@@ -1,22 +1,34 @@
 package com.upgrad.quora.api.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.upgrad.quora.api.model.*;
 import com.upgrad.quora.service.business.AnswerService;
 import com.upgrad.quora.service.business.QuestionService;
-import com.upgrad.quora.service.business.UserAdminBusinessService;
+import com.upgrad.quora.service.business.RequestPrincipal;
+import com.upgrad.quora.service.common.KeysetPage;
+import com.upgrad.quora.service.dto.AnswerImport;
+import com.upgrad.quora.service.dto.AnswerListItem;
+import com.upgrad.quora.service.dto.AnswerSummary;
 import com.upgrad.quora.service.entity.AnswerEntity;
-import com.upgrad.quora.service.entity.UserAuthTokenEntity;
 import com.upgrad.quora.service.exception.AnswerNotFoundException;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import com.upgrad.quora.service.exception.InvalidPageRequestException;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
-import com.upgrad.quora.service.type.ActionType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -30,14 +42,17 @@ public class AnswerController {
     QuestionService questionService;
 
     @Autowired
-    UserAdminBusinessService userAdminBusinessService;
+    ObjectMapper objectMapper;
+
+    @Value("${quora.bulk-import.batch-size:500}")
+    int bulkImportBatchSize;
 
     /**
      * Rest API endpoint method for creating an answer for a question
      *
      * @param answerRequest Answer request object
      * @param questionUuId  question uuid object as String
-     * @param authorization access Token for user authorization
+     * @param principal     principal of the request
      * @return ResponseEntity object with AnswerResponse Object
      * @throws AuthorizationFailedException exception thrown if user Authorization failed
      * @throws InvalidQuestionException     thrown if question is invalid
@@ -45,24 +60,18 @@ public class AnswerController {
     @RequestMapping(method = RequestMethod.POST, path = "/question/{questionId}answer/create", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
     public ResponseEntity<AnswerResponse> createAnswer(final AnswerRequest answerRequest,
                                                        @PathVariable("questionId") final String questionUuId,
-                                                       @RequestHeader final String authorization)
+                                                       final RequestPrincipal principal)
             throws AuthorizationFailedException, InvalidQuestionException {
 
-        String [] bearerToken = authorization.split("Bearer ");
-
-        //Authorize the user
-        UserAuthTokenEntity authorizedUser = userAdminBusinessService.getUserByAccessToken(authorization, ActionType.CREATE_QUESTION);
-
         //Create answer object
         AnswerEntity answer = new AnswerEntity();
         answer.setAnswer(answerRequest.getAnswer());
         answer.setUuid(UUID.randomUUID().toString());
-        answer.setUser(authorizedUser.getUser());
         ZonedDateTime now = ZonedDateTime.now();
         answer.setDate(now);
 
         //Send the answer object from creation in database
-        AnswerEntity createdAnswer = answerService.createAnswer(answer, questionUuId, bearerToken[0]);
+        AnswerEntity createdAnswer = answerService.createAnswer(answer, questionUuId, principal);
 
         //create answer reponse object
         AnswerResponse answerResponse = new AnswerResponse().id(createdAnswer.getUuid()).status("ANSWER CREATED");
@@ -71,12 +80,83 @@ public class AnswerController {
     }
 
 
+    /**
+     * Rest API endpoint method for importing answers in bulk from an NDJSON body, one AnswerImportRequest per line,
+     * while the body is being uploaded. Answers are committed in batches of quora.bulk-import.batch-size,
+     * lines that cannot be imported are reported and skipped.
+     *
+     * @param principal     principal of an admin
+     * @param request       request with the NDJSON body
+     * @return ResponseEntity object with the BulkImportResponse
+     * @throws AuthorizationFailedException exception thrown if the user is not a signed in admin
+     * @throws IOException                  thrown if the body cannot be read
+     */
+    @RequestMapping(method = RequestMethod.POST, path = "/answer/bulk", consumes = "application/x-ndjson", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<BulkImportResponse> bulkImportAnswers(final RequestPrincipal principal,
+                                                                final HttpServletRequest request)
+            throws AuthorizationFailedException, IOException {
+
+        answerService.authorizeAnswerImport(principal);
+
+        BulkImportReport report = new BulkImportReport();
+        List<AnswerImport> batch = new ArrayList<AnswerImport>();
+        List<Integer> batchLines = new ArrayList<Integer>();
+        try (NdjsonReader reader = new NdjsonReader(objectMapper, request.getInputStream())) {
+            while (reader.next()) {
+                try {
+                    AnswerImportRequest answerImportRequest = reader.read(AnswerImportRequest.class);
+                    AnswerEntity answer = new AnswerEntity();
+                    answer.setUuid(UUID.randomUUID().toString());
+                    answer.setAnswer(answerImportRequest.getAnswer());
+                    answer.setDate(ZonedDateTime.now());
+                    batch.add(new AnswerImport(answer, answerImportRequest.getQuestionId(), answerImportRequest.getUserId()));
+                    batchLines.add(reader.getLineNumber());
+                } catch (JsonProcessingException e) {
+                    report.failed(reader.getLineNumber(), "Line is not an answer JSON object: " + e.getOriginalMessage());
+                }
+
+                if (batch.size() >= bulkImportBatchSize) {
+                    importAnswerBatch(batch, batchLines, principal, report);
+                }
+            }
+        }
+        importAnswerBatch(batch, batchLines, principal, report);
+        return new ResponseEntity<BulkImportResponse>(report.toResponse(), HttpStatus.OK);
+    }
+
+    /**
+     * private utility method for committing one batch of a bulk answer import and reporting its lines.
+     */
+    private void importAnswerBatch(List<AnswerImport> batch, List<Integer> batchLines, RequestPrincipal principal, BulkImportReport report)
+            throws AuthorizationFailedException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            answerService.importAnswers(batch, principal);
+            for (int i = 0; i < batch.size(); i++) {
+                AnswerImport answerImport = batch.get(i);
+                if (answerImport.getErrorMessage() == null) {
+                    report.imported(batchLines.get(i), answerImport.getAnswer().getUuid());
+                } else {
+                    report.failed(batchLines.get(i), answerImport.getErrorMessage());
+                }
+            }
+        } catch (DataAccessException e) {
+            for (Integer line : batchLines) {
+                report.failed(line, "Batch could not be committed: " + e.getMostSpecificCause().getMessage());
+            }
+        }
+        batch.clear();
+        batchLines.clear();
+    }
+
     /**
      * Rest API endpoint method for editing an answer for a question
      *
      * @param answerEditRequest edit request
      * @param answerUuId        answerUuid to be edited
-     * @param authorization     user uuid for authorization
+     * @param principal         principal of the request
      * @return ResponseEntity class with AnswerEditResponse
      * @throws AuthorizationFailedException exception thrown if user Authorization failed
      * @throws AnswerNotFoundException      thrown if answer uuid is not found
@@ -84,20 +164,15 @@ public class AnswerController {
     @RequestMapping(method = RequestMethod.PUT, path = "/answer/edit/{answerId}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE, consumes = MediaType.APPLICATION_JSON_UTF8_VALUE)
     public ResponseEntity<AnswerEditResponse> editAnswer(AnswerEditRequest answerEditRequest,
                                                          @PathVariable("answerId") final String answerUuId,
-                                                         @RequestHeader("authorization") final String authorization)
+                                                         final RequestPrincipal principal)
             throws AuthorizationFailedException, AnswerNotFoundException {
 
-        String [] bearerToken = authorization.split("Bearer ");
-
-        //Authorize the user if he has signed in properly
-        UserAuthTokenEntity authorizedUser = userAdminBusinessService.getUserByAccessToken(authorization, ActionType.EDIT_ANSWER);
-
-        //get the answer Object after checking if user if owner of the answer
-        AnswerEntity answer = answerService.isUserAnswerOwner(answerUuId, authorizedUser, ActionType.EDIT_ANSWER);
         //set the details that needs to updated in database
+        AnswerEntity answer = new AnswerEntity();
         answer.setAnswer(answerEditRequest.getContent());
         answer.setDate(ZonedDateTime.now());
-        AnswerEntity editedAnswer = answerService.editAnswer(answer, answerUuId, bearerToken[0]);
+        //the service checks that the user is the owner of the answer
+        AnswerEntity editedAnswer = answerService.editAnswer(answer, answerUuId, principal);
         AnswerEditResponse answerEditResponse = new AnswerEditResponse()
                 .id(answerUuId)
                 .status("ANSWER EDITED");
@@ -110,23 +185,18 @@ public class AnswerController {
      * Only and answer owner or an admin can delete this
      *
      * @param answerUuId    answeruuid string
-     * @param authorization acces token of user
+     * @param principal     principal of the request
      * @return ResponseEntity object with AnswerDeleteResponse
      * @throws AuthorizationFailedException exception thrown if user Authorization failed
      * @throws AnswerNotFoundException      thrown if answer uuid is not found
      */
     @RequestMapping(method = RequestMethod.DELETE, path = "/answer/delete/{answerId}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
     public ResponseEntity<AnswerDeleteResponse> deleteAnswer(@PathVariable("answerId") final String answerUuId,
-                                                             @RequestHeader("authorization") final String authorization)
+                                                             final RequestPrincipal principal)
             throws AuthorizationFailedException, AnswerNotFoundException {
 
-        String [] bearerToken = authorization.split("Bearer ");
-
-        //Authorize the user if he has signed in properly
-        UserAuthTokenEntity authorizedUser = userAdminBusinessService.getUserByAccessToken(authorization, ActionType.DELETE_ANSWER);
-        //Check if the user is himself or an admin trying to delete the answer
-        AnswerEntity answer = answerService.isUserAnswerOwner(answerUuId, authorizedUser, ActionType.DELETE_ANSWER);
-        AnswerEntity deletedAnswer = answerService.deleteAnswer(answer,answerUuId,bearerToken[0]);
+        //the service checks that the user is the owner of the answer or an admin
+        AnswerEntity deletedAnswer = answerService.deleteAnswer(answerUuId, principal);
         AnswerDeleteResponse answerDeleteResponse = new AnswerDeleteResponse()
                 .id(deletedAnswer.getUuid())
                 .status("ANSWER DELETED");
@@ -136,9 +206,10 @@ public class AnswerController {
 
     /**
      * Rest API endpoint method for getting all answers for a specific question.
+     * All answers are joined into one response, use getAnswersPage for questions with many answers.
      *
      * @param questionId    question uuid String
-     * @param authorization accesstoken of the user
+     * @param principal     principal of the request
      * @return ResponseEntity object with AnswerDetailsResponse object
      * @throws AuthorizationFailedException exception thrown if user Authorization failed
      * @throws InvalidQuestionException     thrown is question is invalid
@@ -146,14 +217,10 @@ public class AnswerController {
      */
     @RequestMapping(method = RequestMethod.GET, path = "/all/{questionId}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
     public ResponseEntity<AnswerDetailsResponse> getAllAnswersToQuestion(@PathVariable("questionId") final String questionId,
-                                                                         @RequestHeader("authorization") final String authorization)
+                                                                         final RequestPrincipal principal)
             throws AuthorizationFailedException, InvalidQuestionException, AnswerNotFoundException {
 
-        String [] bearerToken = authorization.split("Bearer ");
-
-        //Authorize the user if he has signed in properly
-        UserAuthTokenEntity authorizedUser = userAdminBusinessService.getUserByAccessToken(authorization, ActionType.GET_ALL_ANSWER_TO_QUESTION);
-        List<AnswerEntity> answerList = answerService.getAnswersForQuestion(questionId, bearerToken[0]);
+        List<AnswerSummary> answerList = answerService.getAnswersForQuestion(questionId, principal);
         StringBuilder contentBuilder = new StringBuilder();
         getContentsString(answerList, contentBuilder);
         StringBuilder uuIdBuilder = new StringBuilder();
@@ -165,17 +232,50 @@ public class AnswerController {
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    /**
+     * Rest API endpoint method for getting one page of the answers for a specific question, oldest first.
+     *
+     * @param questionId question uuid String
+     * @param principal  principal of the request
+     * @param cursor     cursor returned in the next-cursor header of the previous page, or null for the first page
+     * @param limit      requested page size, or null for the default page size
+     * @return ResponseEntity object with the list of AnswerListResponse objects and the next-cursor header unless this is the last page
+     * @throws AuthorizationFailedException exception thrown if user Authorization failed
+     * @throws InvalidQuestionException     thrown is question is invalid
+     * @throws InvalidPageRequestException  thrown if the cursor or the page size is invalid
+     */
+    @RequestMapping(method = RequestMethod.GET, path = "/answer/list/{questionId}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<List<AnswerListResponse>> getAnswersPage(@PathVariable("questionId") final String questionId,
+                                                                   final RequestPrincipal principal,
+                                                                   @RequestParam(value = "cursor", required = false) final String cursor,
+                                                                   @RequestParam(value = "limit", required = false) final Integer limit)
+            throws AuthorizationFailedException, InvalidQuestionException, InvalidPageRequestException {
+
+        KeysetPage<AnswerListItem> answerPage = answerService.getAnswersPage(questionId, cursor, limit, principal);
+        List<AnswerListResponse> answerListResponses = new ArrayList<AnswerListResponse>(answerPage.getItems().size());
+        for (AnswerListItem item : answerPage.getItems()) {
+            answerListResponses.add(new AnswerListResponse().id(item.getUuid()).answerContent(item.getAnswer()).userId(item.getUserUuid())
+                    .date(item.getDate() == null ? null : item.getDate().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)));
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        if (answerPage.getNextCursor() != null) {
+            headers.add("next-cursor", answerPage.getNextCursor());
+        }
+        return new ResponseEntity<List<AnswerListResponse>>(answerListResponses, headers, HttpStatus.OK);
+    }
+
     /**
      * private utility method for appending the uuid of answers.
      *
      * @param answerList  List of questions
      * @param uuIdBuilder StringBuilder object
      */
-    public static final String getUuIdStringAndQuestionContent(List<AnswerEntity> answerList, StringBuilder uuIdBuilder) {
+    public static final String getUuIdStringAndQuestionContent(List<AnswerSummary> answerList, StringBuilder uuIdBuilder) {
         String questionContent = new String();
-        for (AnswerEntity answerObject : answerList) {
+        for (AnswerSummary answerObject : answerList) {
             uuIdBuilder.append(answerObject.getUuid()).append(",");
-            questionContent = answerObject.getQuestion().getContent();
+            questionContent = answerObject.getQuestionContent();
         }
         return questionContent;
     }
@@ -186,8 +286,8 @@ public class AnswerController {
      * @param answerList list of questions
      * @param builder    StringBuilder with appended content list.
      */
-    public static final StringBuilder getContentsString(List<AnswerEntity> answerList, StringBuilder builder) {
-        for (AnswerEntity answerObject : answerList) {
+    public static final StringBuilder getContentsString(List<AnswerSummary> answerList, StringBuilder builder) {
+        for (AnswerSummary answerObject : answerList) {
             builder.append(answerObject.getAnswer()).append(",");
         }
         return builder;
@@ -0,0 +1,49 @@
+package com.upgrad.quora.api.controller;
+
+import com.upgrad.quora.api.model.BulkImportLineResult;
+import com.upgrad.quora.api.model.BulkImportResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the outcome of every line of a bulk import and the import throughput.
+ * The clock starts when the report is created.
+ */
+class BulkImportReport {
+
+    static final String IMPORTED = "IMPORTED";
+
+    static final String FAILED = "FAILED";
+
+    private final long startNanos = System.nanoTime();
+
+    private final List<BulkImportLineResult> results = new ArrayList<BulkImportLineResult>();
+
+    private int imported;
+
+    private int failed;
+
+    void imported(final int line, final String id) {
+        results.add(new BulkImportLineResult().line(line).id(id).status(IMPORTED));
+        imported++;
+    }
+
+    void failed(final int line, final String message) {
+        results.add(new BulkImportLineResult().line(line).status(FAILED).message(message));
+        failed++;
+    }
+
+    BulkImportResponse toResponse() {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        int lines = imported + failed;
+        results.sort((first, second) -> Integer.compare(first.getLine(), second.getLine()));
+        return new BulkImportResponse()
+                .lines(lines)
+                .imported(imported)
+                .failed(failed)
+                .elapsedMillis(elapsedNanos / 1000000)
+                .linesPerSecond(elapsedNanos == 0 ? 0 : lines * 1e9 / elapsedNanos)
+                .results(results);
+    }
+}
@@ -0,0 +1,57 @@
+package com.upgrad.quora.api.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes a JSON array to the response one element at a time.
+ * The response is only started with the first element (or on close), so errors raised before that,
+ * such as failed authorization, can still be answered with a regular error response.
+ */
+class JsonArrayStreamWriter implements Closeable {
+
+    private final ObjectMapper objectMapper;
+
+    private final HttpServletResponse response;
+
+    private JsonGenerator generator;
+
+    JsonArrayStreamWriter(final ObjectMapper objectMapper, final HttpServletResponse response) {
+        this.objectMapper = objectMapper;
+        this.response = response;
+    }
+
+    /**
+     * @param element element to append to the array
+     * @throws UncheckedIOException if the response cannot be written, so that it can be thrown from a callback
+     */
+    void write(final Object element) {
+        try {
+            start();
+            generator.writeObject(element);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        start();
+        generator.writeEndArray();
+        generator.close();
+    }
+
+    private void start() throws IOException {
+        if (generator == null) {
+            response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+            generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+            generator.writeStartArray();
+        }
+    }
+}
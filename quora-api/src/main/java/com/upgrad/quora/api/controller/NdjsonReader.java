@@ -0,0 +1,65 @@
+package com.upgrad.quora.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads a newline delimited JSON (NDJSON) request body one line at a time, so that only the current line is held
+ * in memory however large the upload is. Blank lines are skipped but still counted, so that line numbers match
+ * the ones of the uploaded file.
+ */
+class NdjsonReader implements Closeable {
+
+    private final ObjectMapper objectMapper;
+
+    private final BufferedReader reader;
+
+    private String line;
+
+    private int lineNumber;
+
+    NdjsonReader(final ObjectMapper objectMapper, final InputStream inputStream) {
+        this.objectMapper = objectMapper;
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return true if a non blank line was read, false at the end of the body
+     */
+    boolean next() throws IOException {
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (!line.trim().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return number of the current line, starting at 1
+     */
+    int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @param type type to bind the current line to
+     * @return the current line bound to the type
+     * @throws IOException if the current line is not a JSON object of the type
+     */
+    <T> T read(final Class<T> type) throws IOException {
+        return objectMapper.readValue(line, type);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
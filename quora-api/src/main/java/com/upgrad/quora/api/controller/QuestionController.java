@@ -1,19 +1,36 @@
 package com.upgrad.quora.api.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.upgrad.quora.api.model.*;
+import com.upgrad.quora.service.business.QuestionFeedService;
 import com.upgrad.quora.service.business.QuestionService;
+import com.upgrad.quora.service.business.SearchService;
+import com.upgrad.quora.service.business.RequestPrincipal;
+import com.upgrad.quora.service.common.KeysetPage;
 import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.dto.QuestionFeedItem;
+import com.upgrad.quora.service.dto.QuestionSummary;
 import com.upgrad.quora.service.entity.QuestionEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import com.upgrad.quora.service.exception.InvalidPageRequestException;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
+import com.upgrad.quora.service.search.SearchHit;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -25,68 +42,197 @@ public class QuestionController {
     @Autowired
     private QuestionService questionService;
 
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private QuestionFeedService questionFeedService;
+
     @Autowired
     private UserDao userDao;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${quora.bulk-import.batch-size:500}")
+    private int bulkImportBatchSize;
+
     @RequestMapping(method = RequestMethod.POST, path = "/question/create", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<QuestionResponse> createQuestion(final QuestionRequest questionRequest, @RequestHeader("authorization") final String authorization) throws AuthorizationFailedException {
+    public ResponseEntity<QuestionResponse> createQuestion(final QuestionRequest questionRequest, final RequestPrincipal principal) throws AuthorizationFailedException {
         final QuestionEntity questionEntity = new QuestionEntity();
 
         questionEntity.setUuid(UUID.randomUUID().toString());
         questionEntity.setContent(questionRequest.getContent());
         questionEntity.setDate(ZonedDateTime.now());
 
-        QuestionEntity createdQuestionEntity = questionService.createQuestion(questionEntity,authorization);
+        QuestionEntity createdQuestionEntity = questionService.createQuestion(questionEntity, principal);
         QuestionResponse questionResponse = new QuestionResponse().id(createdQuestionEntity.getUuid()).status("QUESTION CREATED");
         return new ResponseEntity<QuestionResponse>(questionResponse, HttpStatus.CREATED);
     }
 
+    /**
+     * Imports questions from an NDJSON body, one QuestionRequest per line, while the body is being uploaded.
+     * Lines that are not valid questions are reported and skipped, valid ones are committed in batches of
+     * quora.bulk-import.batch-size, so a batch that fails to commit does not undo the batches before it.
+     */
+    @RequestMapping(method = RequestMethod.POST, path = "/question/bulk", consumes = "application/x-ndjson", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<BulkImportResponse> bulkImportQuestions(final RequestPrincipal principal, final HttpServletRequest request) throws AuthorizationFailedException, IOException {
+        questionService.authorizeQuestionImport(principal);
+
+        BulkImportReport report = new BulkImportReport();
+        List<QuestionEntity> batch = new ArrayList<QuestionEntity>();
+        List<Integer> batchLines = new ArrayList<Integer>();
+        try (NdjsonReader reader = new NdjsonReader(objectMapper, request.getInputStream())) {
+            while (reader.next()) {
+                try {
+                    QuestionRequest questionRequest = reader.read(QuestionRequest.class);
+                    QuestionEntity questionEntity = new QuestionEntity();
+                    questionEntity.setUuid(UUID.randomUUID().toString());
+                    questionEntity.setContent(questionRequest.getContent());
+                    questionEntity.setDate(ZonedDateTime.now());
+                    questionService.validateQuestion(questionEntity);
+                    batch.add(questionEntity);
+                    batchLines.add(reader.getLineNumber());
+                } catch (JsonProcessingException e) {
+                    report.failed(reader.getLineNumber(), "Line is not a question JSON object: " + e.getOriginalMessage());
+                } catch (InvalidQuestionException e) {
+                    report.failed(reader.getLineNumber(), e.getErrorMessage());
+                }
+
+                if (batch.size() >= bulkImportBatchSize) {
+                    importQuestionBatch(batch, batchLines, principal, report);
+                }
+            }
+        }
+        importQuestionBatch(batch, batchLines, principal, report);
+        return new ResponseEntity<BulkImportResponse>(report.toResponse(), HttpStatus.OK);
+    }
+
+    private void importQuestionBatch(final List<QuestionEntity> batch, final List<Integer> batchLines, final RequestPrincipal principal, final BulkImportReport report) throws AuthorizationFailedException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            questionService.importQuestions(batch, principal);
+            for (int i = 0; i < batch.size(); i++) {
+                report.imported(batchLines.get(i), batch.get(i).getUuid());
+            }
+        } catch (DataAccessException e) {
+            for (Integer line : batchLines) {
+                report.failed(line, "Batch could not be committed: " + e.getMostSpecificCause().getMessage());
+            }
+        }
+        batch.clear();
+        batchLines.clear();
+    }
+
     @RequestMapping(method = RequestMethod.GET, path = "/question/all", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<List<QuestionDetailsResponse>> getAllQuestions(@RequestHeader("authorization") final String authorization) throws AuthorizationFailedException, UserNotFoundException {
-        List<QuestionEntity> allQuestions = questionService.getAllQuestion(authorization);
+    public ResponseEntity<List<QuestionDetailsResponse>> getAllQuestions(final RequestPrincipal principal,
+                                                                         @RequestParam(value = "cursor", required = false) final String cursor,
+                                                                         @RequestParam(value = "limit", required = false) final Integer limit) throws AuthorizationFailedException, InvalidPageRequestException {
+        KeysetPage<QuestionSummary> questionPage = questionService.getAllQuestion(principal, cursor, limit);
+        List<QuestionSummary> allQuestions = questionPage.getItems();
         List<QuestionDetailsResponse> allQuestionDetailsResponse = new ArrayList<QuestionDetailsResponse>();
 
         for(int i = 0;i<allQuestions.size();i++){
-            QuestionDetailsResponse questionDetailsResponse = new QuestionDetailsResponse().content(allQuestions.get(i).getContent()).id(allQuestions.get(i).getUuid());
-            allQuestionDetailsResponse.add(questionDetailsResponse);
+            allQuestionDetailsResponse.add(toQuestionDetailsResponse(allQuestions.get(i)));
         }
 
-        return new ResponseEntity<List<QuestionDetailsResponse>>(allQuestionDetailsResponse, HttpStatus.OK);
+        HttpHeaders headers = new HttpHeaders();
+        if (questionPage.getNextCursor() != null) {
+            headers.add("next-cursor", questionPage.getNextCursor());
+        }
+        return new ResponseEntity<List<QuestionDetailsResponse>>(allQuestionDetailsResponse, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Searches the questions and their answers for the words of the query, best match first, one page at a time.
+     * The search backend is selected by quora.search.backend.
+     */
+    @RequestMapping(method = RequestMethod.GET, path = "/question/search", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<List<QuestionSearchResponse>> searchQuestions(final RequestPrincipal principal,
+                                                                        @RequestParam("query") final String query,
+                                                                        @RequestParam(value = "cursor", required = false) final String cursor,
+                                                                        @RequestParam(value = "limit", required = false) final Integer limit) throws AuthorizationFailedException, InvalidPageRequestException {
+        KeysetPage<SearchHit<QuestionSummary>> hitPage = searchService.searchQuestions(query, cursor, limit, principal);
+        List<QuestionSearchResponse> questionSearchResponses = new ArrayList<QuestionSearchResponse>(hitPage.getItems().size());
+        for (SearchHit<QuestionSummary> hit : hitPage.getItems()) {
+            questionSearchResponses.add(new QuestionSearchResponse().id(hit.getValue().getUuid()).content(hit.getValue().getContent()).score(hit.getScore()));
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        if (hitPage.getNextCursor() != null) {
+            headers.add("next-cursor", hitPage.getNextCursor());
+        }
+        return new ResponseEntity<List<QuestionSearchResponse>>(questionSearchResponses, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Returns the newest questions by date with their authors and numbers of answers, served from memory.
+     */
+    @RequestMapping(method = RequestMethod.GET, path = "/question/feed", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<List<QuestionFeedResponse>> getQuestionFeed(final RequestPrincipal principal,
+                                                                      @RequestParam(value = "limit", required = false) final Integer limit) throws AuthorizationFailedException, InvalidPageRequestException {
+        List<QuestionFeedItem> feed = questionFeedService.getFeed(limit, principal);
+        List<QuestionFeedResponse> questionFeedResponses = new ArrayList<QuestionFeedResponse>(feed.size());
+        for (QuestionFeedItem item : feed) {
+            questionFeedResponses.add(new QuestionFeedResponse().id(item.getUuid()).content(item.getContent()).userId(item.getUserUuid())
+                    .answerCount(item.getAnswerCount()).date(formatDate(item.getDate())));
+        }
+        return new ResponseEntity<List<QuestionFeedResponse>>(questionFeedResponses, HttpStatus.OK);
+    }
+
+    /**
+     * Streams all questions as one JSON array, written incrementally while the questions are read from the database.
+     */
+    @RequestMapping(method = RequestMethod.GET, path = "/question/all", params = "stream=true", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public void streamAllQuestions(final RequestPrincipal principal, final HttpServletResponse response) throws AuthorizationFailedException, IOException {
+        JsonArrayStreamWriter writer = new JsonArrayStreamWriter(objectMapper, response);
+        questionService.streamAllQuestions(principal,
+                question -> writer.write(toQuestionDetailsResponse(question)));
+        writer.close();
     }
 
     @RequestMapping(method = RequestMethod.PUT, path = "/question/edit/{questionId}", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<QuestionEditResponse> editQuestionContent(final QuestionEditRequest questionEditRequest, @PathVariable("questionId") final String questionId, @RequestHeader("authorization") final String authorization) throws AuthorizationFailedException, InvalidQuestionException {
+    public ResponseEntity<QuestionEditResponse> editQuestionContent(final QuestionEditRequest questionEditRequest, @PathVariable("questionId") final String questionId, final RequestPrincipal principal) throws AuthorizationFailedException, InvalidQuestionException {
 
         QuestionEntity questionEntity = new QuestionEntity();
         questionEntity.setContent(questionEditRequest.getContent());
         questionEntity.setUuid(questionId);
 
-        QuestionEntity updatedQuestionEntity = questionService.editQuestionContent(questionId,questionEntity, authorization);
+        QuestionEntity updatedQuestionEntity = questionService.editQuestionContent(questionId,questionEntity, principal);
         QuestionEditResponse questionEditResponse = new QuestionEditResponse().id(updatedQuestionEntity.getUuid()).status("QUESTION EDITED");
         return new ResponseEntity<QuestionEditResponse>(questionEditResponse, HttpStatus.OK);
     }
 
     @RequestMapping(method = RequestMethod.DELETE, path = "/question/delete/{questionId}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<QuestionDeleteResponse> deleteQuestion(@PathVariable(value = "questionId") final String questionId, @RequestHeader("authorization") final String authorization) throws AuthorizationFailedException, InvalidQuestionException {
-        QuestionEntity deletedQuestion = questionService.deleteQuestion(questionId, authorization);
+    public ResponseEntity<QuestionDeleteResponse> deleteQuestion(@PathVariable(value = "questionId") final String questionId, final RequestPrincipal principal) throws AuthorizationFailedException, InvalidQuestionException {
+        QuestionEntity deletedQuestion = questionService.deleteQuestion(questionId, principal);
         QuestionDeleteResponse questionDeleteResponse = new QuestionDeleteResponse().id(deletedQuestion.getUuid()).status("QUESTION DELETED");
         return new ResponseEntity<QuestionDeleteResponse>(questionDeleteResponse, HttpStatus.OK);
     }
 
     @RequestMapping(method = RequestMethod.GET,path = "question/all/{userId}",produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<List<QuestionDetailsResponse>> getAllQuestionsByUser(@PathVariable(value = "userId")final String uuid,@RequestHeader(value = "authorization")final String authorization) throws UserNotFoundException, AuthorizationFailedException {
+    public ResponseEntity<List<QuestionDetailsResponse>> getAllQuestionsByUser(@PathVariable(value = "userId")final String uuid,final RequestPrincipal principal) throws UserNotFoundException, AuthorizationFailedException {
 
-        List<QuestionEntity> questionEntities = questionService.getAllQuestionByUser(uuid, authorization);
+        List<QuestionSummary> questionEntities = questionService.getAllQuestionByUser(uuid, principal);
 
         List<QuestionDetailsResponse> questionDetailsResponseList = new ArrayList<QuestionDetailsResponse>();
 
         for(int i = 0;i<questionEntities.size();i++){
-            QuestionDetailsResponse questionDetailsResponse = new QuestionDetailsResponse().id(questionEntities.get(i).getUuid()).content(questionEntities.get(i).getContent());
-            questionDetailsResponseList.add(questionDetailsResponse);
+            questionDetailsResponseList.add(toQuestionDetailsResponse(questionEntities.get(i)));
         }
 
         return new ResponseEntity<List<QuestionDetailsResponse>>(questionDetailsResponseList, HttpStatus.OK);
 
     }
 
+    private static QuestionDetailsResponse toQuestionDetailsResponse(final QuestionSummary question) {
+        return new QuestionDetailsResponse().id(question.getUuid()).content(question.getContent())
+                .answerCount(question.getAnswerCount()).lastAnswerAt(formatDate(question.getLastAnswerAt()));
+    }
+
+    private static String formatDate(final ZonedDateTime date) {
+        return date == null ? null : date.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+    }
 }
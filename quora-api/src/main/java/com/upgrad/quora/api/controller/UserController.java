@@ -1,5 +1,6 @@
 package com.upgrad.quora.api.controller;
 
+import com.upgrad.quora.api.config.RequestPrincipalFilter;
 import com.upgrad.quora.api.model.SigninResponse;
 import com.upgrad.quora.api.model.SignoutResponse;
 import com.upgrad.quora.api.model.SignupUserRequest;
@@ -12,6 +13,7 @@ import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthenticationFailedException;
 import com.upgrad.quora.service.exception.SignOutRestrictedException;
 import com.upgrad.quora.service.exception.SignUpRestrictedException;
+import com.upgrad.quora.service.exception.TooManyRequestsException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -22,6 +24,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 import java.util.Base64;
 import java.util.UUID;
 
@@ -34,7 +37,7 @@ public class UserController {
     private SignupBusinessService signupBusinessService;
 
     @RequestMapping(method = RequestMethod.POST, path = "/user/signup", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<SignupUserResponse> userSignup(final SignupUserRequest signupUserRequest) throws SignUpRestrictedException {
+    public ResponseEntity<SignupUserResponse> userSignup(final SignupUserRequest signupUserRequest) throws SignUpRestrictedException, TooManyRequestsException {
 
         final UserEntity userEntity = new UserEntity();
 
@@ -63,7 +66,9 @@ public class UserController {
     private AuthenticationService authenticationService;
 
     @RequestMapping(method = RequestMethod.POST, path = "/user/signin", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<SigninResponse> login(@RequestHeader("authorization") final String authorization) throws AuthenticationFailedException {
+    public ResponseEntity<SigninResponse> login(@RequestHeader("authorization") final String authorization,
+                                                @RequestHeader(value = "user-agent", required = false) final String userAgent,
+                                                final HttpServletRequest request) throws AuthenticationFailedException, TooManyRequestsException {
         byte[] decode;
         try {
             decode = Base64.getDecoder().decode(authorization.split("Basic ")[1]);
@@ -76,7 +81,8 @@ public class UserController {
         String decodedText = new String(decode);
         String[] decodedArray = decodedText.split(":");
         //authentication service does authentication based on username and password. Authentication service in-turn calls UserDao to create auth token
-        UserAuthTokenEntity userAuthToken = authenticationService.authenticate(decodedArray[0], decodedArray[1]);
+        String client = userAgent == null ? request.getRemoteAddr() : request.getRemoteAddr() + " " + userAgent;
+        UserAuthTokenEntity userAuthToken = authenticationService.authenticate(decodedArray[0], decodedArray[1], client);
 
         UserEntity user = userAuthToken.getUser();
 
@@ -96,7 +102,7 @@ public class UserController {
     public ResponseEntity<SignoutResponse> logout(@RequestHeader("authorization") final String accessToken) throws SignOutRestrictedException {
 
         //signout using access token
-        UserAuthTokenEntity userAuthToken = signoutService.signout(accessToken);
+        UserAuthTokenEntity userAuthToken = signoutService.signout(RequestPrincipalFilter.accessToken(accessToken));
 
         //return uuid of the user
         SignoutResponse authorizedUserResponse = new SignoutResponse().id(userAuthToken.getUuid()).message("SIGNED OUT SUCCESSFULLY");
@@ -0,0 +1,137 @@
+package com.upgrad.quora.api;
+
+import com.upgrad.quora.service.business.IndexSearchService;
+import com.upgrad.quora.service.business.PrincipalResolver;
+import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.entity.AnswerEntity;
+import com.upgrad.quora.service.entity.QuestionEntity;
+import com.upgrad.quora.service.entity.UserEntity;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the IndexSearchService does not keep questions and answers that are gone from the database.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class IndexSearchTest {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private IndexSearchService indexSearchService;
+
+    @Autowired
+    private PrincipalResolver principalResolver;
+
+    @Autowired
+    private UserDao userDao;
+
+    //This test case passes when the questions and answers of a deleted user are no longer found.
+    @Test
+    public void deletedUserIsRemoved() throws Exception {
+        String questionWord = "quokka" + System.nanoTime();
+        String answerWord = "wombat" + System.nanoTime();
+        UserEntity user = new TransactionTemplate(transactionManager).execute(status -> {
+            UserEntity author = newUser("index_user" + System.nanoTime());
+            entityManager.persist(author);
+            QuestionEntity ownQuestion = newQuestion("Where do " + questionWord + " live", author);
+            entityManager.persist(ownQuestion);
+            indexSearchService.questionSaved(ownQuestion);
+            QuestionEntity otherQuestion = newQuestion("Which animals live on islands", userDao.getUserReference(1026));
+            entityManager.persist(otherQuestion);
+            indexSearchService.questionSaved(otherQuestion);
+            AnswerEntity answer = new AnswerEntity();
+            answer.setUuid(UUID.randomUUID().toString());
+            answer.setAnswer("The " + answerWord + " does");
+            answer.setDate(ZonedDateTime.now());
+            answer.setUser(author);
+            answer.setQuestion(otherQuestion);
+            entityManager.persist(answer);
+            indexSearchService.answerSaved(answer);
+            return author;
+        });
+        assertEquals(1, countHits(questionWord));
+        assertEquals(1, countHits(answerWord));
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            indexSearchService.userDeleted(user);
+            return userDao.deleteUser(user.getUuid());
+        });
+        assertEquals(0, countHits(questionWord));
+        assertEquals(0, countHits(answerWord));
+    }
+
+    //This test case passes when an answer of a question that is not indexed is left out instead of adding a document without a question.
+    @Test
+    public void answerOfMissingQuestionIsSkipped() {
+        int documents = indexSearchService.getDocumentCount();
+        QuestionEntity question = new QuestionEntity();
+        question.setId(-1);
+        AnswerEntity answer = new AnswerEntity();
+        answer.setUuid(UUID.randomUUID().toString());
+        answer.setAnswer("orphan answer");
+        answer.setQuestion(question);
+        indexSearchService.answerSaved(answer);
+        assertEquals(documents, indexSearchService.getDocumentCount());
+    }
+
+    //This test case passes when a question written to the database without passing the index, as by another instance, is found after a rebuild.
+    @Test
+    public void rebuildPicksUpQuestionsOfOtherInstances() throws Exception {
+        String word = "narwhal" + System.nanoTime();
+        new TransactionTemplate(transactionManager).execute(status -> entityManager
+                .createNativeQuery("insert into question (uuid, content, date, user_id) values (:uuid, :content, now(), 1026)")
+                .setParameter("uuid", UUID.randomUUID().toString())
+                .setParameter("content", "Where do " + word + " swim")
+                .executeUpdate());
+        assertEquals(0, countHits(word));
+
+        indexSearchService.rebuildIndex();
+        assertEquals(1, countHits(word));
+        assertEquals(((Number) entityManager.createNativeQuery("select count(*) from question").getSingleResult()).intValue(),
+                indexSearchService.getDocumentCount());
+    }
+
+    private int countHits(final String query) throws Exception {
+        return indexSearchService.searchQuestions(query, null, 100, principalResolver.resolve("database_accesstoken1")).getItems().size();
+    }
+
+    private static UserEntity newUser(final String userName) {
+        UserEntity user = new UserEntity();
+        user.setUuid(UUID.randomUUID().toString());
+        user.setFirstName("first");
+        user.setLastName("last");
+        user.setUserName(userName);
+        user.setEmail(userName + "@quora.io");
+        user.setPassword("password");
+        user.setSalt("salt");
+        user.setRole("nonadmin");
+        return user;
+    }
+
+    private static QuestionEntity newQuestion(final String content, final UserEntity user) {
+        QuestionEntity question = new QuestionEntity();
+        question.setUuid(UUID.randomUUID().toString());
+        question.setContent(content);
+        question.setDate(ZonedDateTime.now());
+        question.setUser(user);
+        return question;
+    }
+}
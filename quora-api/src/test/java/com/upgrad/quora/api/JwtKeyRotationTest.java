@@ -0,0 +1,63 @@
+package com.upgrad.quora.api;
+
+import com.upgrad.quora.service.business.JwtKeyRing;
+import com.upgrad.quora.service.business.JwtTokenProvider;
+import com.upgrad.quora.service.business.JwtTokenVerifier;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.ZonedDateTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks which tokens the JwtTokenVerifier accepts while the signing key is rotated: the key ring holds the rotated
+ * out key next to the active one.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"quora.jwt.keys=rotated-out=rotated-out-signing-secret,current=current-signing-secret", "quora.jwt.active-key-id=current"})
+public class JwtKeyRotationTest {
+
+    @Autowired
+    private JwtKeyRing jwtKeyRing;
+
+    @Autowired
+    private JwtTokenVerifier jwtTokenVerifier;
+
+    //This test case passes when new tokens are signed with the active key and verify.
+    @Test
+    public void activeKeySignsAndVerifies() {
+        String accessToken = newToken(jwtKeyRing.getTokenProvider());
+        assertEquals("current", jwtKeyRing.getActiveKeyId());
+        assertNotNull(jwtTokenVerifier.verify(accessToken));
+    }
+
+    //This test case passes when a token signed with a key that is no longer active still verifies while the key is part of the ring.
+    @Test
+    public void rotatedOutKeyVerifies() {
+        String accessToken = newToken(new JwtTokenProvider("rotated-out", "rotated-out-signing-secret"));
+        assertEquals("database_uuid1", jwtTokenVerifier.verify(accessToken).getAudience().get(0));
+    }
+
+    //This test case passes when a token signed with a key id that is not part of the ring is rejected.
+    @Test
+    public void unknownKeyIsRejected() {
+        assertNull(jwtTokenVerifier.verify(newToken(new JwtTokenProvider("removed", "rotated-out-signing-secret"))));
+    }
+
+    //This test case passes when a token carrying the id of a key of the ring but signed with another secret is rejected.
+    @Test
+    public void badSignatureIsRejected() {
+        assertNull(jwtTokenVerifier.verify(newToken(new JwtTokenProvider("current", "rotated-out-signing-secret"))));
+    }
+
+    private static String newToken(final JwtTokenProvider jwtTokenProvider) {
+        ZonedDateTime now = ZonedDateTime.now();
+        return jwtTokenProvider.generateToken("database_uuid1", 1026, "nonadmin", now, now.plusHours(8));
+    }
+}
@@ -0,0 +1,232 @@
+package com.upgrad.quora.api;
+
+
+import com.upgrad.quora.service.business.UserAuthPartitionManager;
+import com.upgrad.quora.service.dao.QuestionDao;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.hql.internal.ast.ASTQueryTranslatorFactory;
+import org.hibernate.hql.spi.QueryTranslator;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.PersistenceContext;
+import javax.persistence.metamodel.EntityType;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs EXPLAIN on the SQL of every named query with sequential scans disabled, so that a named query filtering
+ * or sorting on a column without an index fails here instead of scanning whole tables in production.
+ * Every named query needs sample parameters in SAMPLE_PARAMETERS.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class QueryPlanTest {
+
+    private static final Map<String, Map<String, Object>> SAMPLE_PARAMETERS = new HashMap<>();
+
+    static {
+        SAMPLE_PARAMETERS.put("userByUuid", Collections.singletonMap("uuid", "database_uuid"));
+        SAMPLE_PARAMETERS.put("userByUserName", Collections.singletonMap("username", "database_username"));
+        SAMPLE_PARAMETERS.put("userByEmail", Collections.singletonMap("email", "database_email"));
+        SAMPLE_PARAMETERS.put("userAuthTokenByAccessToken", Collections.singletonMap("accessToken", "database_accesstoken"));
+        Map<String, Object> byLoginAt = new HashMap<>();
+        byLoginAt.put("accessToken", "database_accesstoken");
+        byLoginAt.put("loginFrom", Timestamp.valueOf("2018-09-17 13:07:02"));
+        byLoginAt.put("loginTo", Timestamp.valueOf("2018-09-17 13:07:03"));
+        SAMPLE_PARAMETERS.put("userAuthTokenByAccessTokenAndLoginAt", byLoginAt);
+        Map<String, Object> revokedSince = new HashMap<>();
+        revokedSince.put("since", Timestamp.valueOf("2018-09-17 00:00:00"));
+        revokedSince.put("now", Timestamp.valueOf("2018-09-18 00:00:00"));
+        SAMPLE_PARAMETERS.put("revokedUserAuthsSince", revokedSince);
+        SAMPLE_PARAMETERS.put("userRevocationsSince", revokedSince);
+        Map<String, Object> reapable = new HashMap<>();
+        reapable.put("expiredBefore", Timestamp.valueOf("2018-09-17 00:00:00"));
+        reapable.put("loggedOutBefore", Timestamp.valueOf("2018-09-17 00:00:00"));
+        reapable.put("now", Timestamp.valueOf("2018-09-18 00:00:00"));
+        SAMPLE_PARAMETERS.put("reapableUserAuthIds", reapable);
+        SAMPLE_PARAMETERS.put("deleteUserAuthsByIds", Collections.singletonMap("ids", 1024));
+        SAMPLE_PARAMETERS.put("questionEntityByUuid", Collections.singletonMap("uuid", "database_question_uuid"));
+        SAMPLE_PARAMETERS.put("getAllQuestionSummaries", Collections.emptyMap());
+        SAMPLE_PARAMETERS.put("getQuestionSummariesBeforeId", Collections.singletonMap("id", 1024));
+        SAMPLE_PARAMETERS.put("questionSummariesByUser", Collections.singletonMap("user", 1026));
+        SAMPLE_PARAMETERS.put("userIdsByUuids", Collections.singletonMap("uuids", "database_uuid"));
+        Map<String, Object> loginAudit = new HashMap<>();
+        loginAudit.put("lastLoginAt", Timestamp.valueOf("2018-09-17 00:00:00"));
+        loginAudit.put("logins", 1);
+        loginAudit.put("client", "127.0.0.1");
+        loginAudit.put("id", 1025);
+        SAMPLE_PARAMETERS.put("updateUserLoginAudit", loginAudit);
+        SAMPLE_PARAMETERS.put("questionIdsByUuids", Collections.singletonMap("uuids", "database_question_uuid"));
+        SAMPLE_PARAMETERS.put("getAnswerForUuid", Collections.singletonMap("uuid", "database_answer_uuid"));
+        SAMPLE_PARAMETERS.put("getAnswerSummariesForQuestion", Collections.singletonMap("question", 1024));
+        SAMPLE_PARAMETERS.put("getAllAnswerTexts", Collections.emptyMap());
+        SAMPLE_PARAMETERS.put("getNewestQuestionFeedItems", Collections.emptyMap());
+        Map<String, Object> addAnswers = new HashMap<>();
+        addAnswers.put("answers", 1);
+        addAnswers.put("answeredAt", Timestamp.valueOf("2018-09-17 00:00:00"));
+        addAnswers.put("id", 1024);
+        SAMPLE_PARAMETERS.put("addQuestionAnswers", addAnswers);
+        Map<String, Object> removeAnswer = new HashMap<>();
+        removeAnswer.put("id", 1024);
+        removeAnswer.put("answerId", 1024);
+        SAMPLE_PARAMETERS.put("removeQuestionAnswer", removeAnswer);
+        SAMPLE_PARAMETERS.put("maxQuestionId", Collections.emptyMap());
+        SAMPLE_PARAMETERS.put("getAnswerListItemsForQuestion", Collections.singletonMap("question", 1024));
+        Map<String, Object> answersAfter = new HashMap<>();
+        answersAfter.put("question", 1024);
+        answersAfter.put("date", Timestamp.valueOf("2018-09-17 00:00:00"));
+        answersAfter.put("id", 1024);
+        SAMPLE_PARAMETERS.put("getAnswerListItemsForQuestionAfter", answersAfter);
+        SAMPLE_PARAMETERS.put("answerUuidsForQuestion", Collections.singletonMap("question", 1024));
+        SAMPLE_PARAMETERS.put("answerUuidsByUser", Collections.singletonMap("user", 1026));
+        SAMPLE_PARAMETERS.put("answerUuidsForQuestionsOfUser", Collections.singletonMap("user", 1026));
+        SAMPLE_PARAMETERS.put("questionUuidsByUser", Collections.singletonMap("user", 1026));
+        SAMPLE_PARAMETERS.put("questionIdsByUser", Collections.singletonMap("user", 1026));
+        SAMPLE_PARAMETERS.put("questionsAnsweredByUser", Collections.singletonMap("user", 1026));
+        Map<String, Object> removeAnswersOfUser = new HashMap<>();
+        removeAnswersOfUser.put("user", 1026);
+        removeAnswersOfUser.put("ids", 1024);
+        SAMPLE_PARAMETERS.put("removeQuestionAnswersOfUser", removeAnswersOfUser);
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserAuthPartitionManager userAuthPartitionManager;
+
+    //This test case passes when no named query of any entity is planned with a sequential scan.
+    @Test
+    public void namedQueriesUseIndexes() throws Exception {
+        List<String> failures = new ArrayList<>();
+        for (NamedQuery namedQuery : getNamedQueries()) {
+            Map<String, Object> parameters = SAMPLE_PARAMETERS.get(namedQuery.name());
+            if (parameters == null) {
+                failures.add(namedQuery.name() + ": no sample parameters in QueryPlanTest");
+                continue;
+            }
+            String plan = explain(namedQuery.query(), parameters);
+            if (plan.contains("Seq Scan")) {
+                failures.add(namedQuery.name() + ":\n" + plan);
+            }
+        }
+        assertTrue(String.join("\n", failures), failures.isEmpty());
+    }
+
+    //This test case passes when the plan check itself detects a sequential scan on a column without an index.
+    @Test
+    public void unindexedColumnIsDetected() throws Exception {
+        String plan = explain("select u from UserEntity u where u.country = :country", Collections.singletonMap("country", "database_country"));
+        assertTrue(plan, plan.contains("Seq Scan"));
+        assertFalse(explain("select u from UserEntity u where u.uuid = :uuid", SAMPLE_PARAMETERS.get("userByUuid")).contains("Seq Scan"));
+    }
+
+    //This test case passes when the access token lookup by login time only reads the user_auth partition of the login day.
+    @Test
+    public void userAuthLookupByLoginAtReadsOnePartition() throws Exception {
+        userAuthPartitionManager.managePartitions();
+        LocalDate today = LocalDate.now();
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("accessToken", "database_accesstoken");
+        parameters.put("loginFrom", Timestamp.valueOf(today.atTime(12, 0)));
+        parameters.put("loginTo", Timestamp.valueOf(today.atTime(12, 0, 1)));
+        String query = null;
+        for (NamedQuery namedQuery : getNamedQueries()) {
+            if (namedQuery.name().equals("userAuthTokenByAccessTokenAndLoginAt")) {
+                query = namedQuery.query();
+            }
+        }
+        String plan = explain(query, parameters);
+        assertTrue(plan, plan.contains("user_auth_p" + today.format(DateTimeFormatter.BASIC_ISO_DATE)));
+        assertFalse(plan, plan.contains("user_auth_default"));
+    }
+
+    //This test case passes when the full-text search of the postgres search backend finds its matches through the GIN indexes of the search vectors.
+    @Test
+    public void questionSearchUsesSearchVectorIndexes() throws Exception {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET LOCAL enable_seqscan = off");
+            }
+        });
+        @SuppressWarnings("unchecked")
+        List<String> rows = entityManager.createNativeQuery("EXPLAIN " + QuestionDao.SEARCH_QUESTIONS_SQL)
+                .setParameter("query", "database answers")
+                .setParameter("afterRank", Double.POSITIVE_INFINITY)
+                .setParameter("afterId", Integer.MAX_VALUE)
+                .getResultList();
+        String plan = String.join("\n", rows);
+        assertFalse(plan, plan.contains("Seq Scan"));
+        assertTrue(plan, plan.contains("ix_question_search_vector"));
+        assertTrue(plan, plan.contains("ix_answer_search_vector"));
+    }
+
+    private List<NamedQuery> getNamedQueries() {
+        List<NamedQuery> namedQueries = new ArrayList<>();
+        for (EntityType<?> entityType : entityManager.getMetamodel().getEntities()) {
+            NamedQueries annotation = entityType.getJavaType().getAnnotation(NamedQueries.class);
+            if (annotation != null) {
+                Collections.addAll(namedQueries, annotation.value());
+            }
+            NamedQuery single = entityType.getJavaType().getAnnotation(NamedQuery.class);
+            if (single != null) {
+                namedQueries.add(single);
+            }
+        }
+        return namedQueries;
+    }
+
+    /**
+     * Translates the JPQL query to SQL and returns the plan Postgres picks for it when sequential scans are disabled,
+     * which makes the planner use an index whenever one can serve the query.
+     */
+    private String explain(final String jpql, final Map<String, Object> parameters) {
+        SessionFactoryImplementor sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        QueryTranslator translator = new ASTQueryTranslatorFactory()
+                .createQueryTranslator(jpql, jpql, Collections.emptyMap(), sessionFactory, null);
+        translator.compile(Collections.emptyMap(), false);
+
+        StringBuilder plan = new StringBuilder();
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET LOCAL enable_seqscan = off");
+            }
+            //collectSqlStrings also covers bulk update statements, for which getSQLString is not set
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + translator.collectSqlStrings().get(0))) {
+                for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+                    for (int location : translator.getParameterTranslations().getNamedParameterSqlLocations(parameter.getKey())) {
+                        explain.setObject(location + 1, parameter.getValue());
+                    }
+                }
+                try (ResultSet resultSet = explain.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.append(resultSet.getString(1)).append('\n');
+                    }
+                }
+            }
+        });
+        return plan.toString();
+    }
+}
@@ -0,0 +1,86 @@
+package com.upgrad.quora.api;
+
+import com.upgrad.quora.service.business.PrincipalResolver;
+import com.upgrad.quora.service.business.QuestionFeedService;
+import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.dto.QuestionFeedItem;
+import com.upgrad.quora.service.entity.AnswerEntity;
+import com.upgrad.quora.service.entity.QuestionEntity;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks how the QuestionFeedService applies changes that race with a reload of the feed.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class QuestionFeedTest {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private QuestionFeedService questionFeedService;
+
+    @Autowired
+    private PrincipalResolver principalResolver;
+
+    @Autowired
+    private UserDao userDao;
+
+    //This test case passes when an answer whose transaction commits after a reload already read it is counted once.
+    @Test
+    public void answerReadByReloadIsCountedOnce() throws Exception {
+        Integer questionId = new TransactionTemplate(transactionManager).execute(status -> {
+            QuestionEntity question = new QuestionEntity();
+            question.setUuid(UUID.randomUUID().toString());
+            question.setContent("feed_reload_question");
+            question.setDate(ZonedDateTime.now());
+            question.setUser(userDao.getUserReference(1026));
+            entityManager.persist(question);
+            questionFeedService.questionCreated(question, "database_uuid1");
+            return question.getId();
+        });
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            AnswerEntity answer = new AnswerEntity();
+            answer.setUuid(UUID.randomUUID().toString());
+            answer.setAnswer("feed_reload_answer");
+            answer.setDate(ZonedDateTime.now());
+            answer.setUser(userDao.getUserReference(1027));
+            answer.setQuestion(entityManager.getReference(QuestionEntity.class, questionId));
+            entityManager.persist(answer);
+            entityManager.createNativeQuery("update question set answer_count = answer_count + 1 where id = " + questionId).executeUpdate();
+            questionFeedService.answerCreated(questionId);
+            //the reload runs in this transaction, so it reads the answer count of the answer before the answer commits
+            questionFeedService.reloadFeed();
+            return null;
+        });
+
+        assertEquals(1, getFeedItem(questionId).getAnswerCount());
+    }
+
+    private QuestionFeedItem getFeedItem(final Integer questionId) throws Exception {
+        for (QuestionFeedItem item : questionFeedService.getFeed(100, principalResolver.resolve("database_accesstoken1"))) {
+            if (item.getId().equals(questionId)) {
+                return item;
+            }
+        }
+        throw new AssertionError("question " + questionId + " is not in the feed");
+    }
+}
@@ -0,0 +1,89 @@
+package com.upgrad.quora.api;
+
+
+import com.upgrad.quora.service.cache.UserAuthTokenCache;
+import com.upgrad.quora.service.entity.UserAuthTokenEntity;
+import com.upgrad.quora.service.entity.UserEntity;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks which sessions the UserAuthTokenCache drops, on sessions put into the cache directly and on sessions cached
+ * by requests.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class SessionCacheTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserAuthTokenCache userAuthTokenCache;
+
+    @Before
+    public void clearCache() {
+        userAuthTokenCache.clear();
+    }
+
+    //This test case passes when removing the sessions of a user matches them on the uuid of the user, not on the uuid of their user auth rows.
+    @Test
+    public void invalidateUserMatchesUserUuid() {
+        userAuthTokenCache.put(newSession("session_cache_accesstoken1", "session_cache_auth_uuid1", "session_cache_user_uuid1"));
+        userAuthTokenCache.put(newSession("session_cache_accesstoken2", "session_cache_user_uuid1", "session_cache_user_uuid2"));
+
+        userAuthTokenCache.invalidateUser("session_cache_user_uuid1");
+        assertNull(userAuthTokenCache.get("session_cache_accesstoken1"));
+        assertNotNull(userAuthTokenCache.get("session_cache_accesstoken2"));
+    }
+
+    //This test case passes when the session cached by a request is dropped when its access token signs out.
+    @Test
+    public void signoutInvalidatesSession() throws Exception {
+        String userName = "session_user" + System.nanoTime();
+        mvc.perform(MockMvcRequestBuilders.post("/user/signup?firstName=first&lastName=last&userName=" + userName + "&emailAddress=" + userName + "@quora.io"
+                + "&password=secret&country=india&aboutMe=about&dob=01-01-1990&contactNumber=9999999999").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(status().isCreated());
+        String credentials = Base64.getEncoder().encodeToString((userName + ":secret").getBytes(StandardCharsets.UTF_8));
+        String accessToken = mvc.perform(MockMvcRequestBuilders.post("/user/signin").header("authorization", "Basic " + credentials))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("access-token");
+
+        mvc.perform(MockMvcRequestBuilders.get("/question/all?limit=1").header("authorization", accessToken))
+                .andExpect(status().isOk());
+        assertNotNull(userAuthTokenCache.get(accessToken));
+
+        mvc.perform(MockMvcRequestBuilders.post("/user/signout").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", accessToken))
+                .andExpect(status().isOk());
+        assertNull(userAuthTokenCache.get(accessToken));
+    }
+
+    private static UserAuthTokenEntity newSession(final String accessToken, final String uuid, final String userUuid) {
+        UserEntity user = new UserEntity();
+        user.setUuid(userUuid);
+        UserAuthTokenEntity userAuthToken = new UserAuthTokenEntity();
+        userAuthToken.setUuid(uuid);
+        userAuthToken.setUser(user);
+        userAuthToken.setAccessToken(accessToken);
+        userAuthToken.setLoginAt(ZonedDateTime.now());
+        userAuthToken.setExpiresAt(ZonedDateTime.now().plusHours(8));
+        return userAuthToken;
+    }
+}
@@ -0,0 +1,89 @@
+package com.upgrad.quora.api;
+
+import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.entity.AnswerEntity;
+import com.upgrad.quora.service.entity.QuestionEntity;
+import com.upgrad.quora.service.entity.UserEntity;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks what deleting a user, which deletes its answers with it, leaves of the answer activity of the questions of
+ * other users.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class UserDeletionTest {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserDao userDao;
+
+    //This test case passes when the answers of a deleted user are uncounted from the question of another user and its latest answer date goes back to the remaining answer.
+    @Test
+    public void deletedUserAnswersAreUncounted() {
+        ZonedDateTime answeredAt = ZonedDateTime.now();
+        Object[] ids = new TransactionTemplate(transactionManager).execute(status -> {
+            UserEntity user = new UserEntity();
+            user.setUuid(UUID.randomUUID().toString());
+            user.setFirstName("first");
+            user.setLastName("last");
+            user.setUserName("gone_answerer" + System.nanoTime());
+            user.setEmail(user.getUserName() + "@quora.io");
+            user.setPassword("password");
+            user.setSalt("salt");
+            user.setRole("nonadmin");
+            entityManager.persist(user);
+            QuestionEntity question = new QuestionEntity();
+            question.setUuid(UUID.randomUUID().toString());
+            question.setContent("deleted_answerer_question");
+            question.setDate(answeredAt.minusHours(2));
+            question.setUser(userDao.getUserReference(1026));
+            entityManager.persist(question);
+            entityManager.persist(newAnswer(question, userDao.getUserReference(1027), answeredAt.minusHours(1)));
+            entityManager.persist(newAnswer(question, user, answeredAt));
+            entityManager.persist(newAnswer(question, user, answeredAt));
+            entityManager.flush();
+            entityManager.createNativeQuery("update question set answer_count = 3, last_answer_at = :answeredAt where id = :id")
+                    .setParameter("answeredAt", answeredAt)
+                    .setParameter("id", question.getId())
+                    .executeUpdate();
+            return new Object[]{question.getId(), user.getUuid()};
+        });
+
+        new TransactionTemplate(transactionManager).execute(status -> userDao.deleteUser((String) ids[1]));
+
+        Object[] activity = (Object[]) entityManager.createNativeQuery("select q.answer_count, q.last_answer_at = (select a.date from answer a where a.question_id = q.id)"
+                + " from question q where q.id = :id").setParameter("id", ids[0]).getSingleResult();
+        assertEquals(1, ((Number) activity[0]).intValue());
+        assertTrue((Boolean) activity[1]);
+    }
+
+    private static AnswerEntity newAnswer(final QuestionEntity question, final UserEntity user, final ZonedDateTime date) {
+        AnswerEntity answer = new AnswerEntity();
+        answer.setUuid(UUID.randomUUID().toString());
+        answer.setAnswer("deleted_answerer_answer");
+        answer.setDate(date);
+        answer.setUser(user);
+        answer.setQuestion(question);
+        return answer;
+    }
+}
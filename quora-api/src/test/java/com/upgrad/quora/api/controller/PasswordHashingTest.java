@@ -0,0 +1,202 @@
+package com.upgrad.quora.api.controller;
+
+import com.upgrad.quora.service.business.PasswordCryptographyProvider;
+import com.upgrad.quora.service.business.PasswordHashingExecutor;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs sign-up and sign-in against a password hashing pool of one thread and a queue of one task, which the tests
+ * fill with tasks that block until they are released, and checks which stored passwords are hashed again on sign-in.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"quora.password-hashing.pool-size=1", "quora.password-hashing.queue-capacity=1", "quora.password-hashing.timeout-ms=2000"})
+@AutoConfigureMockMvc
+public class PasswordHashingTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    private PasswordCryptographyProvider passwordCryptographyProvider;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    //This test case passes when a sign-in is rejected with 429 while the hashing thread is busy and its queue is full.
+    @Test
+    public void signinWithSaturatedPool() throws Exception {
+        String credentials = signUp("saturated_user" + System.nanoTime());
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> blockers = block(2, release);
+        try {
+            mvc.perform(MockMvcRequestBuilders.post("/user/signin").header("authorization", "Basic " + credentials))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(jsonPath("code").value("HSH-001"));
+        } finally {
+            release.countDown();
+            for (Thread blocker : blockers) {
+                blocker.join();
+            }
+        }
+    }
+
+    //This test case passes when a sign-in waiting in the queue behind a busy hashing thread is rejected with 429 once the timeout passes.
+    @Test
+    public void signinWithBusyPool() throws Exception {
+        String credentials = signUp("busy_user" + System.nanoTime());
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> blockers = block(1, release);
+        try {
+            mvc.perform(MockMvcRequestBuilders.post("/user/signin").header("authorization", "Basic " + credentials))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(jsonPath("code").value("HSH-002"));
+        } finally {
+            release.countDown();
+            for (Thread blocker : blockers) {
+                blocker.join();
+            }
+        }
+    }
+
+    //This test case passes when a password stored as a legacy hash is hashed again with the current iterations on sign-in and still matches afterwards.
+    @Test
+    public void legacyPasswordIsRehashedOnSignin() throws Exception {
+        String userName = "legacy_user" + System.nanoTime();
+        String credentials = signUp(userName);
+        String salt = (String) entityManager.createNativeQuery("select salt from users where username = :userName").setParameter("userName", userName).getSingleResult();
+        String legacyPassword = legacyHash("secret", salt);
+        new TransactionTemplate(transactionManager).execute(status -> entityManager
+                .createNativeQuery("update users set password = :password where username = :userName")
+                .setParameter("password", legacyPassword)
+                .setParameter("userName", userName)
+                .executeUpdate());
+
+        mvc.perform(MockMvcRequestBuilders.post("/user/signin").header("authorization", "Basic " + credentials))
+                .andExpect(status().isOk());
+        assertTrue(getPassword(userName).startsWith("$pbkdf2-sha512$" + passwordCryptographyProvider.getHashingIterations() + "$"));
+        mvc.perform(MockMvcRequestBuilders.post("/user/signin").header("authorization", "Basic " + credentials))
+                .andExpect(status().isOk());
+    }
+
+    //This test case passes when a password hashed with the current iterations is left as it is on sign-in.
+    @Test
+    public void currentPasswordIsNotRehashedOnSignin() throws Exception {
+        String userName = "current_user" + System.nanoTime();
+        String credentials = signUp(userName);
+        String password = getPassword(userName);
+
+        mvc.perform(MockMvcRequestBuilders.post("/user/signin").header("authorization", "Basic " + credentials))
+                .andExpect(status().isOk());
+        assertEquals(password, getPassword(userName));
+    }
+
+    //This test case passes when only hashes with clearly fewer or more iterations than the current ones, another key length or the legacy format need a rehash.
+    @Test
+    public void needsRehashTolerance() {
+        int iterations = passwordCryptographyProvider.getHashingIterations();
+        int keyLength = passwordCryptographyProvider.getHashingKeyLength();
+        assertFalse(passwordCryptographyProvider.needsRehash("$pbkdf2-sha512$" + iterations + "$" + keyLength + "$ABCD"));
+        assertFalse(passwordCryptographyProvider.needsRehash("$pbkdf2-sha512$" + iterations * 9 / 10 + "$" + keyLength + "$ABCD"));
+        assertFalse(passwordCryptographyProvider.needsRehash("$pbkdf2-sha512$" + iterations * 11 / 10 + "$" + keyLength + "$ABCD"));
+        assertTrue(passwordCryptographyProvider.needsRehash("$pbkdf2-sha512$" + iterations / 2 + "$" + keyLength + "$ABCD"));
+        assertTrue(passwordCryptographyProvider.needsRehash("$pbkdf2-sha512$" + iterations * 2 + "$" + keyLength + "$ABCD"));
+        assertTrue(passwordCryptographyProvider.needsRehash("$pbkdf2-sha512$" + iterations + "$" + keyLength / 2 + "$ABCD"));
+        assertTrue(passwordCryptographyProvider.needsRehash("ABCD"));
+    }
+
+    /**
+     * Signs up a new user.
+     *
+     * @return basic authorization credentials of the user
+     */
+    private String signUp(final String userName) throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post("/user/signup?firstName=first&lastName=last&userName=" + userName + "&emailAddress=" + userName + "@quora.io"
+                + "&password=secret&country=india&aboutMe=about&dob=01-01-1990&contactNumber=9999999999").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(status().isCreated());
+        return Base64.getEncoder().encodeToString((userName + ":secret").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String getPassword(final String userName) {
+        return (String) entityManager.createNativeQuery("select password from users where username = :userName").setParameter("userName", userName).getSingleResult();
+    }
+
+    /**
+     * Hashes the password the way passwords were stored before the hash format carried its parameters: 1000 PBKDF2
+     * iterations and a 64 bit key, as upper case hex.
+     */
+    private static String legacyHash(final String password, final String salt) throws Exception {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), Base64.getDecoder().decode(salt), 1000, 64);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : SecretKeyFactory.getInstance("PBKDF2WithHmacSHA512").generateSecret(spec).getEncoded()) {
+            hex.append(String.format("%02X", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Submits tasks to the hashing pool, each from a thread of its own, that block until released. Every task is only
+     * submitted once the one before runs or is queued, so the first one runs and the others are queued.
+     */
+    private List<Thread> block(final int tasks, final CountDownLatch release) throws InterruptedException {
+        List<Thread> blockers = new ArrayList<Thread>();
+        for (int i = 0; i < tasks; i++) {
+            CountDownLatch started = new CountDownLatch(1);
+            Thread blocker = new Thread(() -> {
+                try {
+                    passwordHashingExecutor.execute(() -> {
+                        started.countDown();
+                        return release.await(1, TimeUnit.MINUTES);
+                    });
+                } catch (Exception e) {
+                    //the blocked tasks time out as well, only the sign-in is checked
+                }
+            });
+            blocker.start();
+            blockers.add(blocker);
+            if (i == 0) {
+                assertTrue("the blocking task did not start", started.await(10, TimeUnit.SECONDS));
+            } else {
+                int queued = i;
+                long deadline = System.currentTimeMillis() + 10000;
+                while (passwordHashingExecutor.getQueueDepth() < queued) {
+                    assertTrue("the blocking task was not queued", System.currentTimeMillis() < deadline);
+                    Thread.sleep(10);
+                }
+            }
+        }
+        return blockers;
+    }
+}
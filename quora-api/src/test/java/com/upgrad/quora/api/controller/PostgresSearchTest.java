@@ -0,0 +1,74 @@
+package com.upgrad.quora.api.controller;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import static org.junit.Assert.assertNotEquals;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs /question/search against the postgres search backend, which the other tests do not use.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "quora.search.backend=postgres")
+@AutoConfigureMockMvc
+
+public class PostgresSearchTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    //This test case passes when you search the questions for inflected words of a question content and the question is found.
+    @Test
+    public void searchQuestions() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/search?query=databases contents").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[?(@.id == 'database_question_uuid')]").isNotEmpty());
+    }
+
+    //This test case passes when you search the questions for a word of one of their answers and the question of the answer is found.
+    @Test
+    public void searchQuestionsByAnswer() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/search?query=answered").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[?(@.id == 'database_question_uuid')]").isNotEmpty());
+    }
+
+    //This test case passes when you search created questions page by page and the second page continues after the first.
+    @Test
+    public void searchQuestionsPageByPage() throws Exception {
+        String word = "kite" + System.nanoTime();
+        for (String content : new String[]{"Where to fly a " + word, "Which " + word + " flies best in a storm"}) {
+            mvc.perform(MockMvcRequestBuilders.post("/question/create?content=" + content).contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken1"))
+                    .andExpect(status().isCreated());
+        }
+        MvcResult firstPage = mvc.perform(MockMvcRequestBuilders.get("/question/search?limit=1&query=" + word).header("authorization", "database_accesstoken1"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+                .andReturn();
+        String nextCursor = firstPage.getResponse().getHeader("next-cursor");
+        String secondPage = mvc.perform(MockMvcRequestBuilders.get("/question/search?limit=1&query=" + word + "&cursor=" + nextCursor).header("authorization", "database_accesstoken1"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1))
+                .andExpect(MockMvcResultMatchers.header().doesNotExist("next-cursor"))
+                .andReturn().getResponse().getContentAsString();
+        assertNotEquals(firstPage.getResponse().getContentAsString(), secondPage);
+    }
+
+    //This test case passes when you search the questions and the JWT token entered exists in the database but the user corresponding to that JWT token is signed out.
+    @Test
+    public void searchQuestionsWithSignedOutUser() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/question/search?query=database").header("authorization", "database_accesstoken3"))
+                .andExpect(status().isForbidden())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-002"));
+    }
+}
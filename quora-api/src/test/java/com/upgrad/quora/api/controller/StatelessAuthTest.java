@@ -0,0 +1,169 @@
+package com.upgrad.quora.api.controller;
+
+import com.auth0.jwt.JWT;
+import com.upgrad.quora.service.business.PrincipalResolver;
+import com.upgrad.quora.service.business.RequestPrincipal;
+import com.upgrad.quora.service.business.UserAuthTokenService;
+import com.upgrad.quora.service.cache.EntityCache;
+import com.upgrad.quora.service.cache.TokenRevocationSet;
+import com.upgrad.quora.service.cache.UserAuthTokenCache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the authorization checks with quora.auth.token-verification=stateless, which the other tests do not use.
+ * Stateless tokens are JWTs issued at sign-in, so every test signs up a user of its own and signs it in.
+ * Background jobs that query the database are kept from running, since the statement statistics are global to the
+ * session factory.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"quora.auth.token-verification=stateless", "quora.revocation.sync-initial-delay-ms=86400000", "quora.revocation.sync-interval-ms=86400000",
+        "quora.login-audit.flush-interval-ms=86400000", "quora.user-auth-reaper.initial-delay-ms=86400000", "quora.question-activity-repair.initial-delay-ms=86400000", "quora.feed.reload-interval-ms=86400000", "quora.search.rebuild-interval-ms=86400000"})
+@AutoConfigureMockMvc
+
+public class StatelessAuthTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PrincipalResolver principalResolver;
+
+    @Autowired
+    private UserAuthTokenCache userAuthTokenCache;
+
+    @Autowired
+    private EntityCache entityCache;
+
+    @Autowired
+    private UserAuthTokenService userAuthTokenService;
+
+    @Autowired
+    private TokenRevocationSet tokenRevocationSet;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @Before
+    public void enableStatistics() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        userAuthTokenCache.clear();
+    }
+
+    //This test case passes when a token issued at sign-in resolves to its user and role without any statement.
+    @Test
+    public void signedInTokenResolvesWithoutStatement() throws Exception {
+        String accessToken = signUpAndSignIn("stateless_user");
+        userAuthTokenCache.clear();
+        entityCache.clear();
+
+        statistics.clear();
+        RequestPrincipal principal = principalResolver.resolve(accessToken);
+        assertEquals(0, statistics.getPrepareStatementCount());
+        principal.checkSignedIn("User is signed out");
+        assertFalse(principal.isAdmin());
+    }
+
+    //This test case passes when a token signed out on another instance, which only the database knows of, is rejected once the revocation set is synced.
+    @Test
+    public void signedOutTokenIsRejectedAfterSync() throws Exception {
+        String accessToken = signUpAndSignIn("revoked_user");
+        new TransactionTemplate(transactionManager).execute(status -> entityManager
+                .createNativeQuery("update user_auth set logout_at = now() where access_token = :accessToken")
+                .setParameter("accessToken", accessToken)
+                .executeUpdate());
+        userAuthTokenCache.clear();
+        //the principal resolver keeps the principal of the first resolution for the mock request of the test, so the
+        //sessions are read from the service
+        assertNull(userAuthTokenService.getUserAuthToken(accessToken).getLogoutAt());
+
+        tokenRevocationSet.sync();
+        assertNotNull(userAuthTokenService.getUserAuthToken(accessToken).getLogoutAt());
+    }
+
+    //This test case passes when the tokens a user got before it was deleted are rejected, and the revocation is written for the other instances.
+    @Test
+    public void deletedUserTokenIsRejected() throws Exception {
+        String accessToken = signUpAndSignIn("deleted_user");
+        String userUuid = JWT.decode(accessToken).getAudience().get(0);
+        String adminName = signUp("revoking_admin");
+        new TransactionTemplate(transactionManager).execute(status -> entityManager
+                .createNativeQuery("update users set role = 'admin' where username = :userName")
+                .setParameter("userName", adminName)
+                .executeUpdate());
+        String adminAccessToken = signIn(adminName);
+        assertNull(userAuthTokenService.getUserAuthToken(accessToken).getLogoutAt());
+
+        mvc.perform(MockMvcRequestBuilders.delete("/admin/user/" + userUuid).header("authorization", adminAccessToken))
+                .andExpect(status().isOk());
+        userAuthTokenCache.clear();
+        assertNotNull(userAuthTokenService.getUserAuthToken(accessToken).getLogoutAt());
+        assertEquals(1, ((Number) entityManager.createNativeQuery("select count(*) from user_revocation where user_uuid = :userUuid")
+                .setParameter("userUuid", userUuid).getSingleResult()).intValue());
+    }
+
+    /**
+     * Signs up a new user with a unique user name and signs it in.
+     *
+     * @return access token of the sign-in
+     */
+    private String signUpAndSignIn(final String userNamePrefix) throws Exception {
+        return signIn(signUp(userNamePrefix));
+    }
+
+    /**
+     * Signs up a new user with a unique user name.
+     *
+     * @return user name of the user
+     */
+    private String signUp(final String userNamePrefix) throws Exception {
+        String userName = userNamePrefix + System.nanoTime();
+        mvc.perform(MockMvcRequestBuilders.post("/user/signup?firstName=first&lastName=last&userName=" + userName + "&emailAddress=" + userName + "@quora.io"
+                + "&password=secret&country=india&aboutMe=about&dob=01-01-1990&contactNumber=9999999999").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(status().isCreated());
+        return userName;
+    }
+
+    /**
+     * @return access token of the sign-in
+     */
+    private String signIn(final String userName) throws Exception {
+        String credentials = Base64.getEncoder().encodeToString((userName + ":secret").getBytes(StandardCharsets.UTF_8));
+        return mvc.perform(MockMvcRequestBuilders.post("/user/signin").header("authorization", "Basic " + credentials))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("access-token");
+    }
+}
@@ -0,0 +1,5 @@
+--SCHEMA_VERSION table records the migrations applied on top of quora.sql
+--Every migration is idempotent and registers itself here, so the whole migration set can be re-run on any database
+CREATE TABLE IF NOT EXISTS SCHEMA_VERSION(version VARCHAR(50) PRIMARY KEY, description VARCHAR(200) NOT NULL, installed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP);
+
+INSERT INTO SCHEMA_VERSION(version, description) VALUES ('001', 'create schema version') ON CONFLICT (version) DO NOTHING;
@@ -0,0 +1,38 @@
+--Indexes for the lookup columns of the named queries, which are otherwise answered by sequential scans
+
+--userByUuid, also used for the user of a stateless access token
+CREATE UNIQUE INDEX IF NOT EXISTS UX_USERS_UUID ON USERS(uuid);
+
+--userAuthTokenByAccessToken, used by every authorization check
+--V006 partitions USER_AUTH and replaces this index; the migrate profile runs every migration again, and a unique index
+--on ACCESS_TOKEN alone cannot be created on the partitioned table, so it is only created while USER_AUTH is a plain table
+DO '
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = to_regclass(''user_auth'')) = ''r'' THEN
+        CREATE UNIQUE INDEX IF NOT EXISTS UX_USER_AUTH_ACCESS_TOKEN ON USER_AUTH(ACCESS_TOKEN);
+    END IF;
+END';
+
+--revokedUserAuthsSince, only signed out tokens are indexed
+CREATE INDEX IF NOT EXISTS IX_USER_AUTH_LOGOUT_AT ON USER_AUTH(LOGOUT_AT) WHERE LOGOUT_AT IS NOT NULL;
+
+--questionEntityByUuid
+CREATE UNIQUE INDEX IF NOT EXISTS UX_QUESTION_UUID ON QUESTION(uuid);
+
+--questionSummariesByUser
+CREATE INDEX IF NOT EXISTS IX_QUESTION_USER_ID ON QUESTION(user_id);
+
+--getAnswerForUuid
+CREATE UNIQUE INDEX IF NOT EXISTS UX_ANSWER_UUID ON ANSWER(uuid);
+
+--getAnswerSummariesForQuestion
+--V010 replaces this index by IX_ANSWER_QUESTION_ID_DATE_ID; the migrate profile runs every migration again, so it is
+--only created while that index does not exist instead of being built on ANSWER and dropped by V010 on every migrate
+DO '
+BEGIN
+    IF to_regclass(''ix_answer_question_id_date_id'') IS NULL THEN
+        CREATE INDEX IF NOT EXISTS IX_ANSWER_QUESTION_ID ON ANSWER(question_id);
+    END IF;
+END';
+
+INSERT INTO SCHEMA_VERSION(version, description) VALUES ('002', 'lookup indexes') ON CONFLICT (version) DO NOTHING;
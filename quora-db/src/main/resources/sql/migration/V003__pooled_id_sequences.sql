@@ -0,0 +1,8 @@
+--Ids are allocated by Hibernate in pools of 50 per sequence call, which allows inserts to be batched
+--The increments must match the allocationSize of the @SequenceGenerator of the entities
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
+ALTER SEQUENCE user_auth_id_seq INCREMENT BY 50;
+ALTER SEQUENCE question_id_seq INCREMENT BY 50;
+ALTER SEQUENCE answer_id_seq INCREMENT BY 50;
+
+INSERT INTO SCHEMA_VERSION(version, description) VALUES ('003', 'pooled id sequences') ON CONFLICT (version) DO NOTHING;
@@ -0,0 +1,6 @@
+--Login metadata of the users, written asynchronously after sign-in by the LoginAuditWriter
+ALTER TABLE USERS ADD COLUMN IF NOT EXISTS LAST_LOGIN_AT TIMESTAMP NULL;
+ALTER TABLE USERS ADD COLUMN IF NOT EXISTS LOGIN_COUNT INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE USERS ADD COLUMN IF NOT EXISTS LAST_LOGIN_CLIENT VARCHAR(500) NULL;
+
+INSERT INTO SCHEMA_VERSION(version, description) VALUES ('004', 'user login audit') ON CONFLICT (version) DO NOTHING;
@@ -0,0 +1,4 @@
+--reapableUserAuthIds, the UserAuthReaper deletes user auths by expiry
+CREATE INDEX IF NOT EXISTS IX_USER_AUTH_EXPIRES_AT ON USER_AUTH(EXPIRES_AT);
+
+INSERT INTO SCHEMA_VERSION(version, description) VALUES ('005', 'user auth expires at index') ON CONFLICT (version) DO NOTHING;
@@ -0,0 +1,45 @@
+--USER_AUTH is range partitioned by LOGIN_AT into daily partitions USER_AUTH_Pyyyymmdd, which the UserAuthPartitionManager
+--creates ahead of time and drops once all of their user auths can be reaped, instead of deleting the rows one by one
+--User auths outside of the daily partitions, including those of the table being converted, go to USER_AUTH_DEFAULT
+--Unique indexes of a partitioned table have to contain LOGIN_AT, so the primary key becomes (ID, LOGIN_AT) and the
+--access token index is no longer unique; access tokens carry a random token id and are looked up by their login time
+DO '
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = to_regclass(''user_auth'')) = ''r'' THEN
+        DROP INDEX IF EXISTS UX_USER_AUTH_ACCESS_TOKEN;
+        ALTER SEQUENCE user_auth_id_seq OWNED BY NONE;
+        ALTER TABLE USER_AUTH RENAME TO USER_AUTH_UNPARTITIONED;
+        ALTER INDEX user_auth_pkey RENAME TO user_auth_unpartitioned_pkey;
+
+        CREATE TABLE USER_AUTH(
+            ID BIGINT NOT NULL DEFAULT nextval(''user_auth_id_seq''),
+            uuid VARCHAR(200) NOT NULL,
+            USER_ID INTEGER NOT NULL,
+            ACCESS_TOKEN VARCHAR(500) NOT NULL,
+            EXPIRES_AT TIMESTAMP NOT NULL,
+            LOGIN_AT TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+            LOGOUT_AT TIMESTAMP NULL,
+            PRIMARY KEY (ID, LOGIN_AT)
+        ) PARTITION BY RANGE (LOGIN_AT);
+        ALTER TABLE USER_AUTH ADD CONSTRAINT FK_USER_AUTH_USER_ID FOREIGN KEY(USER_ID) REFERENCES USERS(ID) ON DELETE CASCADE;
+        CREATE TABLE USER_AUTH_DEFAULT PARTITION OF USER_AUTH DEFAULT;
+
+        INSERT INTO USER_AUTH(ID, uuid, USER_ID, ACCESS_TOKEN, EXPIRES_AT, LOGIN_AT, LOGOUT_AT)
+            SELECT ID, uuid, USER_ID, ACCESS_TOKEN, EXPIRES_AT, LOGIN_AT, LOGOUT_AT FROM USER_AUTH_UNPARTITIONED;
+        DROP TABLE USER_AUTH_UNPARTITIONED;
+        ALTER SEQUENCE user_auth_id_seq OWNED BY USER_AUTH.ID;
+    END IF;
+END';
+
+--UX_USER_AUTH_ACCESS_TOKEN of V002 is replaced by IX_USER_AUTH_ACCESS_TOKEN, the other indexes of V002 and V005 are dropped
+--with the unpartitioned table; indexes of USER_AUTH are created on every partition
+--userAuthTokenByAccessTokenAndLoginAt, userAuthTokenByAccessToken
+CREATE INDEX IF NOT EXISTS IX_USER_AUTH_ACCESS_TOKEN ON USER_AUTH(ACCESS_TOKEN);
+
+--revokedUserAuthsSince, only signed out tokens are indexed
+CREATE INDEX IF NOT EXISTS IX_USER_AUTH_LOGOUT_AT ON USER_AUTH(LOGOUT_AT) WHERE LOGOUT_AT IS NOT NULL;
+
+--reapableUserAuthIds, and the UserAuthPartitionManager checking a partition for user auths that cannot be reaped yet
+CREATE INDEX IF NOT EXISTS IX_USER_AUTH_EXPIRES_AT ON USER_AUTH(EXPIRES_AT);
+
+INSERT INTO SCHEMA_VERSION(version, description) VALUES ('006', 'user auth partitioned by login at') ON CONFLICT (version) DO NOTHING;
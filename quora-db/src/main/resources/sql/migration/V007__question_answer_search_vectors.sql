@@ -0,0 +1,9 @@
+--SEARCH_VECTOR holds the English text search terms of a question or an answer, kept up to date by Postgres itself,
+--GIN indexed for the postgres backend of /question/search (quora.search.backend)
+ALTER TABLE QUESTION ADD COLUMN IF NOT EXISTS SEARCH_VECTOR TSVECTOR GENERATED ALWAYS AS (TO_TSVECTOR('english', CONTENT)) STORED;
+CREATE INDEX IF NOT EXISTS IX_QUESTION_SEARCH_VECTOR ON QUESTION USING GIN (SEARCH_VECTOR);
+
+ALTER TABLE ANSWER ADD COLUMN IF NOT EXISTS SEARCH_VECTOR TSVECTOR GENERATED ALWAYS AS (TO_TSVECTOR('english', ANS)) STORED;
+CREATE INDEX IF NOT EXISTS IX_ANSWER_SEARCH_VECTOR ON ANSWER USING GIN (SEARCH_VECTOR);
+
+INSERT INTO SCHEMA_VERSION(version, description) VALUES ('007', 'question and answer search vectors') ON CONFLICT (version) DO NOTHING;
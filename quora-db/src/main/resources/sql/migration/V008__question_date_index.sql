@@ -0,0 +1,4 @@
+--getNewestQuestionFeedItems, the QuestionFeedService loads the newest questions by date
+CREATE INDEX IF NOT EXISTS IX_QUESTION_DATE_ID ON QUESTION(DATE DESC, ID DESC);
+
+INSERT INTO SCHEMA_VERSION(version, description) VALUES ('008', 'question date index') ON CONFLICT (version) DO NOTHING;
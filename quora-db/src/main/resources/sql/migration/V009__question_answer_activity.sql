@@ -0,0 +1,10 @@
+--Number of answers and date of the latest answer of every question, kept by the AnswerService as answers are
+--created and deleted and recomputed by the QuestionActivityRepairer
+ALTER TABLE QUESTION ADD COLUMN IF NOT EXISTS ANSWER_COUNT INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE QUESTION ADD COLUMN IF NOT EXISTS LAST_ANSWER_AT TIMESTAMP NULL;
+
+UPDATE QUESTION Q SET ANSWER_COUNT = A.ANSWER_COUNT, LAST_ANSWER_AT = A.LAST_ANSWER_AT
+FROM (SELECT QUESTION_ID, COUNT(*) AS ANSWER_COUNT, MAX(DATE) AS LAST_ANSWER_AT FROM ANSWER GROUP BY QUESTION_ID) A
+WHERE Q.ID = A.QUESTION_ID AND (Q.ANSWER_COUNT, Q.LAST_ANSWER_AT) IS DISTINCT FROM (A.ANSWER_COUNT, A.LAST_ANSWER_AT);
+
+INSERT INTO SCHEMA_VERSION(version, description) VALUES ('009', 'question answer activity') ON CONFLICT (version) DO NOTHING;
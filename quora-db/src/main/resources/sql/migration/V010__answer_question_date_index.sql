@@ -0,0 +1,7 @@
+--getAnswerListItemsForQuestion and getAnswerListItemsForQuestionAfter, the answers of a question are paged by date and id
+CREATE INDEX IF NOT EXISTS IX_ANSWER_QUESTION_ID_DATE_ID ON ANSWER(QUESTION_ID, DATE, ID);
+
+--the lookups of the answers of a question by QUESTION_ID alone use the leading column of the index above
+DROP INDEX IF EXISTS IX_ANSWER_QUESTION_ID;
+
+INSERT INTO SCHEMA_VERSION(version, description) VALUES ('010', 'answer question date index') ON CONFLICT (version) DO NOTHING;
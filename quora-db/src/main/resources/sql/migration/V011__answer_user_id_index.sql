@@ -0,0 +1,4 @@
+--answerUuidsByUser, and the ON DELETE CASCADE of ANSWER.USER_ID when a user is deleted
+CREATE INDEX IF NOT EXISTS IX_ANSWER_USER_ID ON ANSWER(USER_ID);
+
+INSERT INTO SCHEMA_VERSION(version, description) VALUES ('011', 'answer user id index') ON CONFLICT (version) DO NOTHING;
@@ -0,0 +1,15 @@
+--Users whose access tokens issued up to REVOKED_AT no longer verify, written when a user is deleted or its role changes.
+--Stateless verification takes the user and role from the token, so the TokenRevocationSet syncs these rows next to the
+--signed out user auths; the user auths of a deleted user are deleted with it and cannot carry the revocation, so there
+--is no foreign key to USERS. Rows are no longer read once EXPIRES_AT, the expiry of the last token they revoke, has passed.
+CREATE TABLE IF NOT EXISTS USER_REVOCATION(
+    ID SERIAL PRIMARY KEY,
+    USER_UUID VARCHAR(200) NOT NULL,
+    REVOKED_AT TIMESTAMP NOT NULL,
+    EXPIRES_AT TIMESTAMP NOT NULL
+);
+
+--userRevocationsSince
+CREATE INDEX IF NOT EXISTS IX_USER_REVOCATION_REVOKED_AT ON USER_REVOCATION(REVOKED_AT);
+
+INSERT INTO SCHEMA_VERSION(version, description) VALUES ('012', 'user revocation') ON CONFLICT (version) DO NOTHING;
@@ -1,15 +1,41 @@
 package com.upgrad.quora.service;
 
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 
 /**
  * Enabling the component scan and entity scan of classes in the below mentioned "com.upgrad.quora.service" and "com.upgrad.quora.service.entity" packages respectively.
+ * Scheduling is enabled for the background jobs of the service layer. The jobs run on a pool of quora.scheduling.pool-size
+ * threads, so that the long running reaper and repair jobs do not hold up the session eviction, the revocation sync,
+ * the login audit flush and the feed reload, which all would share one thread otherwise.
  */
 @Configuration
+@EnableScheduling
 @ComponentScan("com.upgrad.quora.service")
 @EntityScan("com.upgrad.quora.service.entity")
-public class ServiceConfiguration {
+public class ServiceConfiguration implements SchedulingConfigurer {
+
+    @Value("${quora.scheduling.pool-size:4}")
+    private int schedulingPoolSize;
+
+    @Bean
+    public ThreadPoolTaskScheduler quoraTaskScheduler() {
+        ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setPoolSize(schedulingPoolSize);
+        taskScheduler.setThreadNamePrefix("quora-scheduling-");
+        return taskScheduler;
+    }
+
+    @Override
+    public void configureTasks(final ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.setTaskScheduler(quoraTaskScheduler());
+    }
 }
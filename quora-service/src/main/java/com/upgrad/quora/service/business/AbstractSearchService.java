@@ -0,0 +1,81 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.KeysetPage;
+import com.upgrad.quora.service.common.PageCursor;
+import com.upgrad.quora.service.dto.QuestionSummary;
+import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import com.upgrad.quora.service.exception.InvalidPageRequestException;
+import com.upgrad.quora.service.search.SearchHit;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keyset pagination and metrics shared by the search backends. Hits are ordered by score, then by question id, both
+ * descending, and the cursor of a page carries the score and id of its last hit; a backend only has to return the
+ * hits ranked after a given score and id.
+ */
+public abstract class AbstractSearchService implements SearchService {
+
+    @Value("${quora.search.default-limit:10}")
+    private int defaultLimit;
+
+    @Value("${quora.search.max-limit:100}")
+    private int maxLimit;
+
+    private final AtomicLong searchCount = new AtomicLong();
+
+    private final AtomicLong searchNanos = new AtomicLong();
+
+    @Override
+    public KeysetPage<SearchHit<QuestionSummary>> searchQuestions(final String query, final String cursor, final Integer limit, final RequestPrincipal principal) throws AuthorizationFailedException, InvalidPageRequestException {
+        principal.checkSignedIn("User is signed out.Sign in first to search questions");
+
+        int pageSize = PageCursor.pageSize(limit, defaultLimit, maxLimit);
+        double afterScore = Double.POSITIVE_INFINITY;
+        int afterId = Integer.MAX_VALUE;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] keys = PageCursor.decode(cursor, 2);
+            try {
+                afterScore = Double.parseDouble(keys[0]);
+                afterId = Integer.parseInt(keys[1]);
+            } catch (NumberFormatException e) {
+                throw new InvalidPageRequestException("PAG-001", "Invalid cursor");
+            }
+        }
+
+        long start = System.nanoTime();
+        List<SearchHit<QuestionSummary>> hits = findQuestions(query, afterScore, afterId, pageSize + 1);
+        searchNanos.addAndGet(System.nanoTime() - start);
+        searchCount.incrementAndGet();
+
+        String nextCursor = null;
+        if (hits.size() > pageSize) {
+            hits = hits.subList(0, pageSize);
+            SearchHit<QuestionSummary> last = hits.get(pageSize - 1);
+            nextCursor = PageCursor.encode(last.getScore(), last.getId());
+        }
+        return new KeysetPage<SearchHit<QuestionSummary>>(hits, nextCursor);
+    }
+
+    /**
+     * @param query      words to search for
+     * @param afterScore score of the last hit of the previous page, or positive infinity for the first page
+     * @param afterId    question id of the last hit of the previous page, or Integer.MAX_VALUE for the first page
+     * @param limit      maximum number of hits
+     * @return the matching questions ranked after the given score and id, best first
+     */
+    protected abstract List<SearchHit<QuestionSummary>> findQuestions(String query, double afterScore, int afterId, int limit);
+
+    public long getSearchCount() {
+        return searchCount.get();
+    }
+
+    /**
+     * @return total time spent searching, in nanoseconds
+     */
+    public long getSearchNanos() {
+        return searchNanos.get();
+    }
+}
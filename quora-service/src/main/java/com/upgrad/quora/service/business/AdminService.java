@@ -1,8 +1,8 @@
 package com.upgrad.quora.service.business;
 
-import com.upgrad.quora.service.dao.UserAuthDao;
+import com.upgrad.quora.service.cache.TokenRevocationSet;
+import com.upgrad.quora.service.cache.UserAuthTokenCache;
 import com.upgrad.quora.service.dao.UserDao;
-import com.upgrad.quora.service.entity.UserAuthTokenEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
@@ -11,30 +11,23 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.ZonedDateTime;
+
 @Service
 public class AdminService {
 
-    @Autowired private UserAuthDao userAuthDao;
-
     @Autowired private UserDao userDao;
 
-    @Transactional(propagation = Propagation.REQUIRED)
-    public UserEntity deleteUser(final String uuid, final String accessToken)
-            throws AuthorizationFailedException, UserNotFoundException {
-        UserAuthTokenEntity userAuthTokenEntity = this.userAuthDao.getUserAuthByToken(accessToken);
+    @Autowired private UserAuthTokenCache userAuthTokenCache;
 
-        if (userAuthTokenEntity == null) {
-            throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
-        }
+    @Autowired private TokenRevocationSet tokenRevocationSet;
 
-        if (userAuthTokenEntity.getLogoutAt() != null) {
-            throw new AuthorizationFailedException("ATHR-002", "User is signed out");
-        }
+    @Autowired private SearchService searchService;
 
-        if (!userAuthTokenEntity.getUser().getRole().equals("admin")) {
-            throw new AuthorizationFailedException(
-                    "ATHR-003", "Unauthorized Access, Entered user is not an admin");
-        }
+    @Transactional(propagation = Propagation.REQUIRED)
+    public UserEntity deleteUser(final String uuid, final RequestPrincipal principal)
+            throws AuthorizationFailedException, UserNotFoundException {
+        principal.checkAdmin("User is signed out");
 
         UserEntity existingUser = this.userDao.getUserByUserid(uuid);
 
@@ -43,7 +36,11 @@ public class AdminService {
                     "USR-001", "User with entered uuid to be deleted does not exist");
         }
 
+        this.searchService.userDeleted(existingUser);
         UserEntity deletedUser = this.userDao.deleteUser(uuid);
+        this.userAuthTokenCache.invalidateUser(uuid);
+        //the tokens of the user are not verified against the database with stateless verification
+        this.tokenRevocationSet.revokeUser(uuid, ZonedDateTime.now().plusHours(AuthenticationService.ACCESS_TOKEN_LIFETIME_HOURS));
         return deletedUser;
     }
 }
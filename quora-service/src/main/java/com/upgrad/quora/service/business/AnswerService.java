@@ -1,22 +1,40 @@
 package com.upgrad.quora.service.business;
 
+import com.upgrad.quora.service.common.KeysetPage;
+import com.upgrad.quora.service.common.PageCursor;
 import com.upgrad.quora.service.dao.AnswerDao;
 import com.upgrad.quora.service.dao.QuestionDao;
 import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.dto.AnswerImport;
+import com.upgrad.quora.service.dto.AnswerListItem;
+import com.upgrad.quora.service.dto.AnswerSummary;
 import com.upgrad.quora.service.entity.AnswerEntity;
 import com.upgrad.quora.service.entity.QuestionEntity;
-import com.upgrad.quora.service.entity.UserAuthTokenEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AnswerNotFoundException;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import com.upgrad.quora.service.exception.InvalidPageRequestException;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
 import com.upgrad.quora.service.type.ActionType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 
 @Service
@@ -31,45 +49,146 @@ public class AnswerService {
     @Autowired
     UserDao userDao;
 
+    @Autowired
+    Validator validator;
+
+    @Autowired
+    SearchService searchService;
+
+    @Autowired
+    QuestionFeedService questionFeedService;
+
+    @Value("${quora.pagination.default-page-size:50}")
+    int defaultPageSize;
+
+    @Value("${quora.pagination.max-page-size:200}")
+    int maxPageSize;
+
     /**
      * method use for creating an answer.
      *
      * @param answer       String value
      * @param questionUuId Id value for Question
-     * @param authToken    authorization Token value
+     * @param principal    principal of the request
      * @return answer object
      * @throws AuthorizationFailedException exception thrown if user is not authorized
      * @throws InvalidQuestionException     exception thrown if question is not found
      */
     @Transactional(propagation = Propagation.REQUIRED)
-    public AnswerEntity createAnswer(AnswerEntity answer, String questionUuId, final String authToken) throws AuthorizationFailedException, InvalidQuestionException {
+    public AnswerEntity createAnswer(AnswerEntity answer, String questionUuId, final RequestPrincipal principal) throws AuthorizationFailedException, InvalidQuestionException {
+        principal.checkSignedIn("User is signed out.Sign in first to post an answer");
+
+        //Returns question based on questionId if exists
+        QuestionEntity question = questionDao.getQuestionByUuid(questionUuId);
+        if (question == null) {
+            throw new InvalidQuestionException("QUES-001", "The question entered is invalid");
+        }
+
+        //Creates Answer based on input
+        answer.setQuestion(questionDao.getQuestionReference(question.getId()));
+        answer.setUser(userDao.getUserReference(principal.getUserId()));
+        answerDao.createAnswer(answer);
+        questionDao.addAnswers(question.getId(), 1, answer.getDate());
+        searchService.answerSaved(answer);
+        questionFeedService.answerCreated(question.getId());
+        return answer;
+    }
 
-        //Checks user signin status based on accessToken provided
-        UserAuthTokenEntity userAuthTokenEntity = userDao.getUserAuthToken(authToken);
+    /**
+     * method use for creating many answers in one transaction, inserted in JDBC batches.
+     * The question of every answer has to be set, answers without a user are posted by the signed in user.
+     *
+     * @param answers   answer objects
+     * @param principal principal of the request
+     * @return created answer objects
+     * @throws AuthorizationFailedException exception thrown if user is not authorized
+     */
+    @Transactional(propagation = Propagation.REQUIRED)
+    public List<AnswerEntity> createAnswers(List<AnswerEntity> answers, final RequestPrincipal principal) throws AuthorizationFailedException {
+        principal.checkSignedIn("User is signed out.Sign in first to post an answer");
 
-        if (userAuthTokenEntity != null) {
-            if (userAuthTokenEntity.getLogoutAt() != null) {
-                throw new AuthorizationFailedException("ATHR-002", "User is signed out.Sign in first to post an answer");
+        UserEntity user = userDao.getUserReference(principal.getUserId());
+        for (AnswerEntity answer : answers) {
+            if (answer.getUser() == null) {
+                answer.setUser(user);
             }
+        }
+        return answersCreated(answerDao.createAnswers(answers));
+    }
 
-            //Returns question based on questionId if exists
-            QuestionEntity question = questionDao.getQuestionByUuid(questionUuId);
+    /**
+     * method used for checking that the principal is a signed in admin, as only admins can import answers in bulk.
+     *
+     * @param principal principal of the request
+     * @throws AuthorizationFailedException exception thrown if user is not a signed in admin
+     */
+    public void authorizeAnswerImport(final RequestPrincipal principal) throws AuthorizationFailedException {
+        principal.checkAdmin("User is signed out.Sign in first to import answers");
+    }
 
+    /**
+     * method used for importing one batch of a bulk answer import in its own transaction.
+     * Every distinct question uuid and user uuid of the batch is resolved once, with one IN query each,
+     * and the answers are then inserted in JDBC batches with references to their question and user,
+     * so no question or user is loaded per answer. Answers without a user are posted by the admin.
+     * Answers that fail validation or refer to an unknown question or user are skipped and get an error message.
+     *
+     * @param answerImports answers to import
+     * @param principal     principal of the admin
+     * @return the answer imports, with an error message on the skipped ones
+     * @throws AuthorizationFailedException exception thrown if user is not a signed in admin
+     */
+    @Transactional(propagation = Propagation.REQUIRED)
+    public List<AnswerImport> importAnswers(List<AnswerImport> answerImports, final RequestPrincipal principal) throws AuthorizationFailedException {
+        authorizeAnswerImport(principal);
 
-            if (question != null) {
-                answer.setQuestion(question);
-                //Creates Answer based on input
-                UserEntity userEntity = userDao.getUserByUserid(userAuthTokenEntity.getUuid());
-                if (userEntity != null) {
-                    answer.setUser(userEntity);
-                    return answerDao.createAnswer(answer);
-                }
+        UserEntity admin = userDao.getUserReference(principal.getUserId());
+
+        Set<String> questionUuids = new HashSet<String>();
+        Set<String> userUuids = new HashSet<String>();
+        for (AnswerImport answerImport : answerImports) {
+            if (answerImport.getQuestionUuid() != null) {
+                questionUuids.add(answerImport.getQuestionUuid());
+            }
+            if (answerImport.getUserUuid() != null) {
+                userUuids.add(answerImport.getUserUuid());
+            }
+        }
+        Map<String, Integer> questionIds = questionUuids.isEmpty() ? new HashMap<String, Integer>() : questionDao.getQuestionIdsByUuids(questionUuids);
+        Map<String, Integer> userIds = userUuids.isEmpty() ? new HashMap<String, Integer>() : userDao.getUserIdsByUuids(userUuids);
+
+        List<AnswerEntity> answers = new ArrayList<AnswerEntity>();
+        for (AnswerImport answerImport : answerImports) {
+            AnswerEntity answer = answerImport.getAnswer();
+            Set<ConstraintViolation<AnswerEntity>> violations = validator.validate(answer);
+            if (!violations.isEmpty()) {
+                ConstraintViolation<AnswerEntity> violation = violations.iterator().next();
+                answerImport.setErrorMessage("Answer " + violation.getPropertyPath() + " " + violation.getMessage());
+                continue;
+            }
 
+            Integer questionId = questionIds.get(answerImport.getQuestionUuid());
+            if (questionId == null) {
+                answerImport.setErrorMessage("The question entered is invalid");
+                continue;
+            }
+            answer.setQuestion(questionDao.getQuestionReference(questionId));
+
+            if (answerImport.getUserUuid() == null) {
+                answer.setUser(admin);
             } else {
-                throw new InvalidQuestionException("QUES-001", "The question entered is invalid");
+                Integer userId = userIds.get(answerImport.getUserUuid());
+                if (userId == null) {
+                    answerImport.setErrorMessage("User with entered uuid does not exist");
+                    continue;
+                }
+                answer.setUser(userDao.getUserReference(userId));
             }
+            answers.add(answer);
         }
-        throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
+
+        answersCreated(answerDao.createAnswers(answers));
+        return answerImports;
     }
 
     /**
@@ -92,151 +211,166 @@ public class AnswerService {
     /**
      * method used for editing answer
      *
-     * @param answer     Answer object
+     * @param answer     Answer object with the new content and date
      * @param answerUuId id value for Answer Object
-     * @param authToken  authorization Token
+     * @param principal  principal of the request
      * @return edited Answer object
      * @throws AuthorizationFailedException exception thrown if user is not authorized
      * @throws AnswerNotFoundException      exception thrown if answer is not found
      */
     @Transactional(propagation = Propagation.REQUIRED)
-    public AnswerEntity editAnswer(AnswerEntity answer, String answerUuId, final String authToken) throws AuthorizationFailedException, AnswerNotFoundException {
-
-        //Checks user signed in status, validates answerId and checks if the signin user is the answer owner
-        UserAuthTokenEntity userAuthTokenEntity = userDao.getUserAuthToken(authToken);
-
-        if (userAuthTokenEntity != null) {
-            if (userAuthTokenEntity.getLogoutAt() != null) {
-                throw new AuthorizationFailedException("ATHR-002", "User is signed out.Sign in first to post an answer");
-            }
-
-            AnswerEntity existingAnswer = answerDao.getAnswerForUuId(answerUuId);
-
-            if (existingAnswer != null) {
-                UserEntity userEntity = userDao.getUserByUserid(userAuthTokenEntity.getUuid());
-                if (existingAnswer.getUser().getId().equals(userEntity.getId())) {
-                    return answerDao.editAnswer(existingAnswer);
-                } else {
-                    throw new AnswerNotFoundException("ANS-001", "Entered answer uuid does not exist");
-                }
-            } else {
-                throw new AuthorizationFailedException("ATHR-003", "Only the answer owner can edit the answer");
-            }
-        }
-        throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
+    public AnswerEntity editAnswer(AnswerEntity answer, String answerUuId, final RequestPrincipal principal) throws AuthorizationFailedException, AnswerNotFoundException {
+        principal.checkSignedIn("User is signed out.Sign in first to edit an answer");
+
+        AnswerEntity existingAnswer = isUserAnswerOwner(answerUuId, principal, ActionType.EDIT_ANSWER);
+        existingAnswer.setAnswer(answer.getAnswer());
+        existingAnswer.setDate(answer.getDate());
+        searchService.answerSaved(existingAnswer);
+        return answerDao.editAnswer(existingAnswer);
     }
 
     /**
      * method used for deleting answer
      *
-     * @param answer     Answer object
      * @param answerUuId id value for Answer Object
-     * @param authToken  authorization Token
+     * @param principal  principal of the request
+     * @return deleted Answer object
      * @throws AuthorizationFailedException exception thrown if user is not authorized
      * @throws AnswerNotFoundException      exception thrown if answer is not found
      */
     @Transactional(propagation = Propagation.REQUIRED)
-    public AnswerEntity deleteAnswer(AnswerEntity answer, String answerUuId, final String authToken) throws AuthorizationFailedException, AnswerNotFoundException {
-
-        //Checks user signin status based on accessToken provided
-        UserAuthTokenEntity userAuthTokenEntity = userDao.getUserAuthToken(authToken);
-
-        if (userAuthTokenEntity != null && answer != null) {
-            if (userAuthTokenEntity.getLogoutAt() != null) {
-                throw new AuthorizationFailedException("ATHR-002", "User is signed out.Sign in first to post an answer");
-            }
-
-            //Returns question based on questionId if exists
-            AnswerEntity answerEntity = answerDao.getAnswerForUuId(answerUuId);
-
-            if (answerEntity != null) {
-                //Creates Answer based on input
-                if (userAuthTokenEntity.getUser().getRole().equalsIgnoreCase("admin") || (answer.getUser().getUuid() == userAuthTokenEntity.getUser().getUuid())) {
-                    return answerDao.deleteAnswer(answerEntity);
-                } else {
-                    throw new AnswerNotFoundException("ANS-001", "Entered answer uuid does not exist");
-                }
-            } else {
-                throw new AuthorizationFailedException("ATHR-003", "Only the answer owner or admin can delete the answer");
-            }
-        }
-        throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
+    public AnswerEntity deleteAnswer(String answerUuId, final RequestPrincipal principal) throws AuthorizationFailedException, AnswerNotFoundException {
+        principal.checkSignedIn("User is signed out.Sign in first to delete an answer");
+
+        AnswerEntity answerEntity = isUserAnswerOwner(answerUuId, principal, ActionType.DELETE_ANSWER);
+        Integer questionId = answerDao.getQuestionId(answerEntity);
+        questionDao.removeAnswer(questionId, answerEntity.getId());
+        searchService.answerDeleted(answerEntity);
+        questionFeedService.answerDeleted(questionId);
+        return answerDao.deleteAnswer(answerEntity);
     }
 
     /**
      * method used for getting answer for a specific question.
      *
      * @param questionUuId question uuid String object
-     * @param authToken    authorization Token
+     * @param principal    principal of the request
      * @return List of Answer for the specicif question
      * @throws AuthorizationFailedException exception thrown if user is not authorized
      * @throws AnswerNotFoundException      exception thrown if answer not found
      * @throws InvalidQuestionException     exception thrown if question is not found
      */
     @Transactional(propagation = Propagation.REQUIRED)
-    public List<AnswerEntity> getAnswersForQuestion(String questionUuId, final String authToken) throws AuthorizationFailedException, AnswerNotFoundException, InvalidQuestionException {
+    public List<AnswerSummary> getAnswersForQuestion(String questionUuId, final RequestPrincipal principal) throws AuthorizationFailedException, AnswerNotFoundException, InvalidQuestionException {
+        principal.checkSignedIn("User is signed out.Sign in first to get the answers");
 
-        //Checks user signin status based on accessToken provided
-        UserAuthTokenEntity userAuthTokenEntity = userDao.getUserAuthToken(authToken);
+        //check if the question exists in question database
+        QuestionEntity question = questionDao.getQuestionByUuid(questionUuId);
+        if (question == null) {
+            throw new InvalidQuestionException("QUES-001", "The question with entered uuid whose details are to be seen does not exist");
+        }
 
-        if (userAuthTokenEntity != null) {
-            if (userAuthTokenEntity.getLogoutAt() != null) {
-                throw new AuthorizationFailedException("ATHR-002", "User is signed out.Sign in first to post an answer");
-            }
+        //get the list of Answers for question
+        List<AnswerSummary> answerList = answerDao.getAnswersForQuestion(question);
+        if (answerList == null) {
+            throw new AnswerNotFoundException("OTHR-001", "No Answers available for the given question uuid");
+        } else {
+            return answerList;
+        }
+    }
 
-            //check if the question exists in question database
-            QuestionEntity question = questionDao.getQuestionByUuid(questionUuId);
-            if (question == null) {
-                throw new InvalidQuestionException("QUES-001", "The question with entered uuid whose details are to be seen does not exist");
+    /**
+     * method used for getting one page of the answers to a question, oldest first.
+     * The cursor carries the date and id of the last answer of the previous page, so a page is read from the
+     * (question_id, date, id) index of the answer table however many answers come before it.
+     *
+     * @param questionUuId question uuid String object
+     * @param cursor       cursor returned with the previous page, or null for the first page
+     * @param limit        requested page size, or null for the default page size; capped at quora.pagination.max-page-size
+     * @param principal    principal of the request
+     * @return the page of answers and the cursor of the next page
+     * @throws AuthorizationFailedException exception thrown if user is not authorized
+     * @throws InvalidQuestionException     exception thrown if question is not found
+     * @throws InvalidPageRequestException  exception thrown if the cursor or the page size is invalid
+     */
+    public KeysetPage<AnswerListItem> getAnswersPage(String questionUuId, String cursor, Integer limit, final RequestPrincipal principal) throws AuthorizationFailedException, InvalidQuestionException, InvalidPageRequestException {
+        principal.checkSignedIn("User is signed out.Sign in first to get the answers");
+
+        int pageSize = PageCursor.pageSize(limit, defaultPageSize, maxPageSize);
+        ZonedDateTime afterDate = null;
+        Integer afterId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] keys = PageCursor.decode(cursor, 2);
+            try {
+                afterDate = ZonedDateTime.ofInstant(Instant.parse(keys[0]), ZoneId.systemDefault());
+                afterId = Integer.parseInt(keys[1]);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new InvalidPageRequestException("PAG-001", "Invalid cursor");
             }
+        }
 
-            //get the list of Answers for question
-            List<AnswerEntity> answerList = answerDao.getAnswersForQuestion(question);
-            if (answerList == null) {
-                throw new AnswerNotFoundException("OTHR-001", "No Answers available for the given question uuid");
-            } else {
-                return answerList;
-            }
+        QuestionEntity question = questionDao.getQuestionByUuid(questionUuId);
+        if (question == null) {
+            throw new InvalidQuestionException("QUES-001", "The question with entered uuid whose details are to be seen does not exist");
         }
-        throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
+
+        List<AnswerListItem> answers = answerDao.getAnswersPage(question.getId(), afterDate, afterId, pageSize + 1);
+        String nextCursor = null;
+        if (answers.size() > pageSize) {
+            answers = answers.subList(0, pageSize);
+            AnswerListItem last = answers.get(pageSize - 1);
+            nextCursor = PageCursor.encode(last.getDate().toInstant(), last.getId());
+        }
+        return new KeysetPage<AnswerListItem>(answers, nextCursor);
     }
 
     /**
-     * method used for checking if user is an owner of the answer.
-     * This method is used in both edit and deleting an answer and throws
-     * specific messaged in case an exception in delete or edit mode.
+     * method used for loading an answer for editing or deleting and checking that the user may do so.
+     * Only the owner can edit an answer, the owner or an admin can delete it.
      *
-     * @param answerUuId     answerUuid String
-     * @param authorizedUser access token of user
-     * @param authToken      enum used to identify whether it is a edit or delete action
+     * @param answerUuId answerUuid String
+     * @param principal  principal of the request
+     * @param actionType enum used to identify whether it is a edit or delete action
      * @return Answer object
      * @throws AnswerNotFoundException      exception thrown if answer not found
      * @throws AuthorizationFailedException exception thrown if user is not authorized for editing and deleting answer
      */
     @Transactional(propagation = Propagation.REQUIRED)
-    public AnswerEntity isUserAnswerOwner(String answerUuId, UserAuthTokenEntity authorizedUser, ActionType authToken) throws AnswerNotFoundException, AuthorizationFailedException {
-        AnswerEntity answer = answerDao.getAnswerForUuId(answerUuId);
+    public AnswerEntity isUserAnswerOwner(String answerUuId, RequestPrincipal principal, ActionType actionType) throws AnswerNotFoundException, AuthorizationFailedException {
+        AnswerEntity answer = answerDao.getManagedAnswerForUuId(answerUuId);
 
         if (answer == null) {
             //if provided answer uuid is not present in database, then throw this exception
             throw new AnswerNotFoundException("ANS-001", "Entered answer uuid does not exist");
-        } else if (!authorizedUser.getUser().getUuid().equals(answer.getUser().getUuid())) {
-            if (ActionType.EDIT_ANSWER.equals(authToken)) {
-                //if users dont match and action is for editing then throw exception with below message
-                throw new AuthorizationFailedException("ATHR-003", "Only the answer owner can edit the answer");
-            } else {
-                //means we are in DELETE action and we should throw separate message for the exception
-                throw new AuthorizationFailedException("ATHR-003", "Only the answer owner or admin can delete the answer");
-            }
-        } else if ((!authorizedUser.getUser().getRole().equals("admin")
-                && !authorizedUser.getUser().getUuid().equals(answer.getUser().getUuid()))
-                && ActionType.DELETE_ANSWER.equals(authToken)) {
-            //In delete mode if role is not admin or the user is not owner of the answer then throw below exception
+        }
+
+        //the id of the user proxy is known without loading the user
+        boolean owner = principal.getUserId().equals(answer.getUser().getId());
+        if (ActionType.EDIT_ANSWER.equals(actionType) && !owner) {
+            throw new AuthorizationFailedException("ATHR-003", "Only the answer owner can edit the answer");
+        }
+        if (ActionType.DELETE_ANSWER.equals(actionType) && !owner && !principal.isAdmin()) {
             throw new AuthorizationFailedException("ATHR-003", "Only the answer owner or admin can delete the answer");
-        } else {
-            return answer;
         }
+        return answer;
     }
 
-
-}
\ No newline at end of file
+    //counts the answers of every question with one update, in question id order so concurrent imports do not deadlock
+    private List<AnswerEntity> answersCreated(final List<AnswerEntity> answers) {
+        Map<Integer, Integer> answerCounts = new TreeMap<Integer, Integer>();
+        Map<Integer, ZonedDateTime> lastAnswerDates = new HashMap<Integer, ZonedDateTime>();
+        for (AnswerEntity answer : answers) {
+            Integer questionId = answerDao.getQuestionId(answer);
+            answerCounts.merge(questionId, 1, Integer::sum);
+            if (answer.getDate() != null) {
+                lastAnswerDates.merge(questionId, answer.getDate(), (date, other) -> date.isAfter(other) ? date : other);
+            }
+            searchService.answerSaved(answer);
+            questionFeedService.answerCreated(questionId);
+        }
+        for (Map.Entry<Integer, Integer> answerCount : answerCounts.entrySet()) {
+            questionDao.addAnswers(answerCount.getKey(), answerCount.getValue(), lastAnswerDates.get(answerCount.getKey()));
+        }
+        return answers;
+    }
+}
@@ -6,6 +6,7 @@ import com.upgrad.quora.service.dao.UserDao;
 import com.upgrad.quora.service.entity.UserAuthTokenEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthenticationFailedException;
+import com.upgrad.quora.service.exception.TooManyRequestsException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
@@ -16,30 +17,56 @@ import java.time.ZonedDateTime;
 @Service
 public class AuthenticationService {
 
+    /**
+     * Lifetime of the access tokens issued at sign-in.
+     */
+    public static final long ACCESS_TOKEN_LIFETIME_HOURS = 8;
+
     @Autowired
     private UserDao userDao;
 
     @Autowired
     private PasswordCryptographyProvider CryptographyProvider;
 
+    @Autowired
+    private JwtKeyRing jwtKeyRing;
+
+    @Autowired
+    private LoginAuditQueue loginAuditQueue;
+
+    /**
+     * Signs the user in with a new access token. The login audit of the user is written asynchronously by the
+     * LoginAuditQueue, so the sign-in transaction only inserts the token, unless the password has to be hashed again.
+     *
+     * @param username user name of the user
+     * @param password password of the user
+     * @param client   client the user signs in from, recorded in the login audit, may be null
+     * @return the user auth of the new access token
+     */
     @Transactional(propagation = Propagation.REQUIRED)
-    public UserAuthTokenEntity authenticate(final String username, final String password) throws AuthenticationFailedException {
+    public UserAuthTokenEntity authenticate(final String username, final String password, final String client) throws AuthenticationFailedException, TooManyRequestsException {
         //calls User DAO to get user entity fo the given user entity if it exists
         UserEntity userEntity = userDao.getUserByUserName(username);
         if (userEntity == null) {
             throw new AuthenticationFailedException("ATH-001", "This username does not exist");
         }
 
-        final String encryptedPassword = CryptographyProvider.encrypt(password, userEntity.getSalt());
-        if (encryptedPassword.equals(userEntity.getPassword())) {
-            JwtTokenProvider jwtTokenProvider = new JwtTokenProvider(encryptedPassword);
+        if (CryptographyProvider.matches(password, userEntity.getSalt(), userEntity.getPassword())) {
+            //passwords hashed with outdated parameters are hashed again with the current ones while the raw password is at hand
+            if (CryptographyProvider.needsRehash(userEntity.getPassword())) {
+                String[] encryptedText = CryptographyProvider.encrypt(password);
+                userEntity.setSalt(encryptedText[0]);
+                userEntity.setPassword(encryptedText[1]);
+                userDao.updateUser(userEntity);
+            }
+            JwtTokenProvider jwtTokenProvider = jwtKeyRing.getTokenProvider();
             UserAuthTokenEntity userAuthTokenEntity = new UserAuthTokenEntity();
             userAuthTokenEntity.setUser(userEntity);
             final ZonedDateTime now = ZonedDateTime.now();
-            final ZonedDateTime expiresAt = now.plusHours(8);
+            final ZonedDateTime expiresAt = now.plusHours(ACCESS_TOKEN_LIFETIME_HOURS);
 
             userAuthTokenEntity.setUuid(userEntity.getUuid());
-            userAuthTokenEntity.setAccessToken(jwtTokenProvider.generateToken(userEntity.getUuid(), now, expiresAt));
+            userAuthTokenEntity.setAccessToken(jwtTokenProvider.generateToken(userEntity.getUuid(), userEntity.getId(), userEntity.getRole(), now, expiresAt));
 
             userAuthTokenEntity.setLoginAt(now);
             userAuthTokenEntity.setExpiresAt(expiresAt);
@@ -47,13 +74,8 @@ public class AuthenticationService {
 
             userDao.createAuthToken(userAuthTokenEntity);
 
-            userDao.updateUser(userEntity);
+            loginAuditQueue.record(userEntity.getId(), now, client);
             return userAuthTokenEntity;
-/*
-            userEntity.setLastLoginAt(now);
-
-
- */
         } else {
             throw new AuthenticationFailedException("ATH-002", "Password failed");
         }
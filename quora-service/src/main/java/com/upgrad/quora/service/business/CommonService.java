@@ -1,7 +1,6 @@
 package com.upgrad.quora.service.business;
 
 import com.upgrad.quora.service.dao.UserDao;
-import com.upgrad.quora.service.entity.UserAuthTokenEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
@@ -17,16 +16,8 @@ public class CommonService {
     private UserDao userDao;
 
     @Transactional(propagation = Propagation.REQUIRED)
-    public UserEntity getUserProf(final String uuid, final String authorizationToken) throws AuthorizationFailedException, UserNotFoundException {
-
-        UserAuthTokenEntity userAuth = userDao.getUserAuthToken(authorizationToken);
-        if (userAuth == null) {
-            throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
-        }
-
-        if(userAuth.getLogoutAt() != null){
-            throw new AuthorizationFailedException("ATHR-002", "User is signed out.Sign in first to get user details");
-        }
+    public UserEntity getUserProf(final String uuid, final RequestPrincipal principal) throws AuthorizationFailedException, UserNotFoundException {
+        principal.checkSignedIn("User is signed out.Sign in first to get user details");
 
         UserEntity userEntity = userDao.getUserByUserid(uuid);
         if (userEntity == null) {
@@ -35,7 +26,7 @@ public class CommonService {
 
         /*Unit Test case not designed for this validation*/
         /*
-        if(userAuth.getUser().getUuid()!=userEntity.getUuid()){
+        if(!principal.getUserUuid().equals(userEntity.getUuid())){
             throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
         }
         */
@@ -0,0 +1,218 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.cache.AfterCommit;
+import com.upgrad.quora.service.dao.AnswerDao;
+import com.upgrad.quora.service.dao.QuestionDao;
+import com.upgrad.quora.service.dto.QuestionSummary;
+import com.upgrad.quora.service.entity.AnswerEntity;
+import com.upgrad.quora.service.entity.QuestionEntity;
+import com.upgrad.quora.service.entity.UserEntity;
+import com.upgrad.quora.service.search.InvertedIndex;
+import com.upgrad.quora.service.search.SearchHit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Search backend answering from an in-process InvertedIndex without any database access, selected by
+ * quora.search.backend=index, the default. A question is one document of the index, with the question content and
+ * every answer as its fields, ranked by BM25 with the parameters quora.search.bm25-k1 and quora.search.bm25-b.
+ * The index is built from the database when the application context starts, before requests are served, and kept
+ * up to date by the QuestionService, AnswerService and AdminService, which pass every created, edited and deleted
+ * question and answer and every deleted user here; changes made in a transaction are applied once it commits.
+ * Every instance keeps its own index and sees only its own changes, so the index is also rebuilt every
+ * quora.search.rebuild-interval-ms. A rebuild reads into a new index, which replaces the current one once complete;
+ * changes applied while it reads are applied to the new index as well. Answers whose question is not indexed are
+ * left out, so that they do not leave documents without a question behind.
+ */
+@Service
+@ConditionalOnProperty(name = "quora.search.backend", havingValue = "index", matchIfMissing = true)
+public class IndexSearchService extends AbstractSearchService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexSearchService.class);
+
+    private static final String QUESTION_FIELD_PREFIX = "question:";
+
+    private static final String ANSWER_FIELD_PREFIX = "answer:";
+
+    @Autowired
+    private QuestionDao questionDao;
+
+    @Autowired
+    private AnswerDao answerDao;
+
+    @Value("${quora.search.bm25-k1:1.2}")
+    private double k1;
+
+    @Value("${quora.search.bm25-b:0.75}")
+    private double b;
+
+    private volatile InvertedIndex<QuestionSummary> index;
+
+    private volatile boolean built;
+
+    //changes applied while a rebuild reads the database, applied to the new index before it replaces the current one
+    private List<Consumer<InvertedIndex<QuestionSummary>>> changesDuringRebuild;
+
+    private final Object rebuildLock = new Object();
+
+    @PostConstruct
+    public void init() {
+        index = new InvertedIndex<QuestionSummary>(k1, b);
+    }
+
+    /**
+     * Loads all questions and answers into the index.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    @Transactional(readOnly = true)
+    public void buildIndex() {
+        if (!built) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuilds the index from the database, picking up the changes made by other instances.
+     */
+    @Scheduled(initialDelayString = "${quora.search.rebuild-interval-ms:600000}", fixedDelayString = "${quora.search.rebuild-interval-ms:600000}")
+    @Transactional(readOnly = true)
+    public void rebuildIndex() {
+        rebuild();
+    }
+
+    @Override
+    protected List<SearchHit<QuestionSummary>> findQuestions(final String query, final double afterScore, final int afterId, final int limit) {
+        return index.search(query, limit, afterScore, afterId);
+    }
+
+    /**
+     * Indexes a created or edited question once the transaction commits, keeping its answers.
+     */
+    @Override
+    public void questionSaved(final QuestionEntity question) {
+        Integer id = question.getId();
+        QuestionSummary summary = new QuestionSummary(id, question.getUuid(), question.getContent());
+        afterCommit(index -> {
+            index.putDocument(id, summary);
+            index.putField(id, QUESTION_FIELD_PREFIX + id, summary.getContent());
+        });
+    }
+
+    /**
+     * Removes a deleted question and its answers once the transaction commits.
+     */
+    @Override
+    public void questionDeleted(final QuestionEntity question) {
+        Integer id = question.getId();
+        afterCommit(index -> index.removeDocument(id));
+    }
+
+    /**
+     * Indexes a created or edited answer as part of its question once the transaction commits, unless the question
+     * has been deleted meanwhile.
+     */
+    @Override
+    public void answerSaved(final AnswerEntity answer) {
+        Integer questionId = answerDao.getQuestionId(answer);
+        String fieldKey = ANSWER_FIELD_PREFIX + answer.getUuid();
+        String text = answer.getAnswer();
+        afterCommit(index -> {
+            if (index.containsDocument(questionId)) {
+                index.putField(questionId, fieldKey, text);
+            }
+        });
+    }
+
+    /**
+     * Removes a deleted answer from its question once the transaction commits.
+     */
+    @Override
+    public void answerDeleted(final AnswerEntity answer) {
+        String fieldKey = ANSWER_FIELD_PREFIX + answer.getUuid();
+        afterCommit(index -> index.removeField(fieldKey));
+    }
+
+    /**
+     * Removes the questions of a deleted user, with their answers, and the answers of the user once the transaction
+     * commits. The ids and uuids are read here, before the database deletes them with the user.
+     */
+    @Override
+    public void userDeleted(final UserEntity user) {
+        List<Integer> questionIds = questionDao.getQuestionIdsByUser(user.getId());
+        List<String> answerUuids = answerDao.getAnswerUuidsByUser(user.getId());
+        afterCommit(index -> {
+            questionIds.forEach(index::removeDocument);
+            answerUuids.forEach(answerUuid -> index.removeField(ANSWER_FIELD_PREFIX + answerUuid));
+        });
+    }
+
+    public int getDocumentCount() {
+        return index.getDocumentCount();
+    }
+
+    public int getTermCount() {
+        return index.getTermCount();
+    }
+
+    private void rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.nanoTime();
+            synchronized (this) {
+                changesDuringRebuild = new ArrayList<Consumer<InvertedIndex<QuestionSummary>>>();
+            }
+            try {
+                InvertedIndex<QuestionSummary> rebuilt = new InvertedIndex<QuestionSummary>(k1, b);
+                questionDao.scrollAllQuestions(question -> {
+                    rebuilt.putDocument(question.getId(), question);
+                    rebuilt.putField(question.getId(), QUESTION_FIELD_PREFIX + question.getId(), question.getContent());
+                });
+                answerDao.scrollAllAnswerTexts(answer -> {
+                    if (rebuilt.containsDocument(answer.getQuestionId())) {
+                        rebuilt.putField(answer.getQuestionId(), ANSWER_FIELD_PREFIX + answer.getUuid(), answer.getAnswer());
+                    }
+                });
+                synchronized (this) {
+                    changesDuringRebuild.forEach(change -> change.accept(rebuilt));
+                    index = rebuilt;
+                }
+            } finally {
+                synchronized (this) {
+                    changesDuringRebuild = null;
+                }
+            }
+            built = true;
+            LOGGER.info("Indexed {} questions with {} terms in {} ms", index.getDocumentCount(), index.getTermCount(), (System.nanoTime() - start) / 1000000);
+        }
+    }
+
+    //changes are applied to the current index and recorded while a rebuild runs, so that they are not lost when the
+    //rebuilt index replaces it; every change can be applied again without harm
+    private void afterCommit(final Consumer<InvertedIndex<QuestionSummary>> change) {
+        Runnable action = () -> {
+            synchronized (this) {
+                change.accept(index);
+                if (changesDuringRebuild != null) {
+                    changesDuringRebuild.add(change);
+                }
+            }
+        };
+        if (AfterCommit.isDeferred()) {
+            AfterCommit.run(action);
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.upgrad.quora.service.business;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.upgrad.quora.service.common.GenericErrorCode;
+import com.upgrad.quora.service.common.UnexpectedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Server-side signing keys for the JWT access tokens.
+ * Keys are configured as "keyId=secret" pairs in quora.jwt.keys. New tokens are signed with the key named by
+ * quora.jwt.active-key-id and carry its id in the "kid" header, while every configured key stays valid for verification,
+ * so keys can be rotated by adding a new key, switching the active id and removing the old key after the token lifetime.
+ */
+@Component
+public class JwtKeyRing {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    @Value("${quora.jwt.keys:}")
+    private String[] keyDefinitions;
+
+    @Value("${quora.jwt.active-key-id:}")
+    private String activeKeyId;
+
+    private final Map<String, String> secrets = new HashMap<>();
+
+    private final Map<String, Algorithm> algorithms = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (String keyDefinition : keyDefinitions) {
+            if (keyDefinition.trim().isEmpty()) {
+                continue;
+            }
+            String[] keyParts = keyDefinition.trim().split("=", 2);
+            if (keyParts.length != 2 || keyParts[0].isEmpty() || keyParts[1].isEmpty()) {
+                throw new UnexpectedException(GenericErrorCode.GEN_001);
+            }
+            secrets.put(keyParts[0], keyParts[1]);
+            algorithms.put(keyParts[0], JwtTokenProvider.hmac512(keyParts[1]));
+        }
+
+        if (secrets.isEmpty()) {
+            //no key configured, tokens signed with this key will not verify after a restart or on another instance
+            activeKeyId = "ephemeral-" + UUID.randomUUID().toString();
+            byte[] secret = new byte[64];
+            new SecureRandom().nextBytes(secret);
+            secrets.put(activeKeyId, Base64.getEncoder().encodeToString(secret));
+            algorithms.put(activeKeyId, JwtTokenProvider.hmac512(secrets.get(activeKeyId)));
+            LOGGER.warn("No JWT signing key configured in quora.jwt.keys, using ephemeral key {}", activeKeyId);
+        } else if (activeKeyId == null || activeKeyId.isEmpty()) {
+            activeKeyId = secrets.keySet().iterator().next();
+        } else if (!secrets.containsKey(activeKeyId)) {
+            throw new UnexpectedException(GenericErrorCode.GEN_001);
+        }
+    }
+
+    /**
+     * @return token provider signing with the active key
+     */
+    public JwtTokenProvider getTokenProvider() {
+        return new JwtTokenProvider(activeKeyId, secrets.get(activeKeyId));
+    }
+
+    /**
+     * @param keyId id of the key, as found in the "kid" header of a token
+     * @return verification algorithm for the key, or null if the key is not part of the ring
+     */
+    public Algorithm getAlgorithm(final String keyId) {
+        return keyId == null ? null : algorithms.get(keyId);
+    }
+
+    public String getActiveKeyId() {
+        return activeKeyId;
+    }
+}
@@ -6,7 +6,6 @@ import com.upgrad.quora.service.common.GenericErrorCode;
 import com.upgrad.quora.service.common.UnexpectedException;
 
 import java.time.ZonedDateTime;
-import java.time.temporal.ChronoField;
 import java.util.Date;
 import java.util.UUID;
 
@@ -14,16 +13,38 @@ import java.util.UUID;
  * This class is used in the project to provide JWT token after successful authentication
  */
 public class JwtTokenProvider {
-    private static final String TOKEN_ISSUER = "https://quora.io";
+    static final String TOKEN_ISSUER = "https://quora.io";
+
+    /**
+     * Claim carrying the database id of the user, so that a verified token identifies its user without a query.
+     */
+    static final String USER_ID_CLAIM = "uid";
+
+    /**
+     * Claim carrying the role of the user when the token was issued.
+     */
+    static final String ROLE_CLAIM = "role";
+
+    private final String keyId;
 
     private final Algorithm algorithm;
 
     /**
-     * A constructor for JwtTokenProvider class which receives user password as an argument to be used in the signature part of JWT access token.
+     * A constructor for JwtTokenProvider class which receives the id and the secret of the server-side signing key.
+     * The key id is written to the token header so that the token can be verified against the right key of the JwtKeyRing.
+     */
+    public JwtTokenProvider(final String keyId, final String secret) {
+        this.keyId = keyId;
+        this.algorithm = hmac512(secret);
+    }
+
+    /**
+     * @param secret - secret of the signing key
+     * @return - HMAC512 algorithm for the secret
      */
-    public JwtTokenProvider(final String secret) {
+    static Algorithm hmac512(final String secret) {
         try {
-            algorithm = Algorithm.HMAC512(secret);
+            return Algorithm.HMAC512(secret);
         } catch (IllegalArgumentException e) {
             throw new UnexpectedException(GenericErrorCode.GEN_001);
         }
@@ -31,23 +52,28 @@ public class JwtTokenProvider {
 
 
     /**
-     * This method receives uuid of the user, current time and expiry time of the access token.
+     * This method receives the user, current time and expiry time of the access token.
      * This information is stored in the payload of the JWT token and the JWT token is returned by this method.
      */
     /**
      * @param userUuid        - uuid of the user
+     * @param userId          - database id of the user
+     * @param role            - role of the user
      * @param issuedDateTime  - current time
      * @param expiresDateTime - expiry time of the JWT token
      * @return - generated JWT token
      */
-    public String generateToken(final String userUuid, final ZonedDateTime issuedDateTime, final ZonedDateTime expiresDateTime) {
+    public String generateToken(final String userUuid, final Integer userId, final String role, final ZonedDateTime issuedDateTime, final ZonedDateTime expiresDateTime) {
 
-        final Date issuedAt = new Date(issuedDateTime.getLong(ChronoField.INSTANT_SECONDS));
-        final Date expiresAt = new Date(expiresDateTime.getLong(ChronoField.INSTANT_SECONDS));
+        final Date issuedAt = Date.from(issuedDateTime.toInstant());
+        final Date expiresAt = Date.from(expiresDateTime.toInstant());
 
         return JWT.create().withIssuer(TOKEN_ISSUER) //
-                .withKeyId(UUID.randomUUID().toString())
+                .withKeyId(keyId)
+                .withJWTId(UUID.randomUUID().toString())
                 .withAudience(userUuid) //
+                .withClaim(USER_ID_CLAIM, userId)
+                .withClaim(ROLE_CLAIM, role)
                 .withIssuedAt(issuedAt).withExpiresAt(expiresAt).sign(algorithm);
     }
 
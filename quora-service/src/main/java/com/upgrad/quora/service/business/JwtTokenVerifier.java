@@ -0,0 +1,72 @@
+package com.upgrad.quora.service.business;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class verifies JWT access tokens locally against the JwtKeyRing, without any database access.
+ */
+@Component
+public class JwtTokenVerifier {
+
+    @Autowired
+    private JwtKeyRing jwtKeyRing;
+
+    private final Map<String, JWTVerifier> verifiers = new ConcurrentHashMap<>();
+
+    /**
+     * Validates signature, issuer and expiry of the access token.
+     *
+     * @param accessToken access token of the user
+     * @return decoded token, or null if the token is malformed, incomplete, signed with an unknown key, tampered with or expired
+     */
+    public DecodedJWT verify(final String accessToken) {
+        try {
+            DecodedJWT decodedToken = JWT.decode(accessToken);
+            JWTVerifier verifier = getVerifier(decodedToken.getKeyId());
+            if (verifier == null || decodedToken.getAudience() == null || decodedToken.getAudience().isEmpty()
+                    || decodedToken.getIssuedAt() == null || decodedToken.getExpiresAt() == null) {
+                return null;
+            }
+            return verifier.verify(accessToken);
+        } catch (JWTVerificationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the issue time of the access token without verifying it. The issue time of the tokens issued at sign-in
+     * is the login time of their user auth, truncated to seconds.
+     *
+     * @param accessToken access token of the user
+     * @return issue time, or null if the access token is not a JWT or has no issue time
+     */
+    public ZonedDateTime getIssuedAt(final String accessToken) {
+        try {
+            Date issuedAt = JWT.decode(accessToken).getIssuedAt();
+            return issuedAt == null ? null : ZonedDateTime.ofInstant(issuedAt.toInstant(), ZoneId.systemDefault());
+        } catch (JWTDecodeException e) {
+            return null;
+        }
+    }
+
+    private JWTVerifier getVerifier(final String keyId) {
+        Algorithm algorithm = jwtKeyRing.getAlgorithm(keyId);
+        if (algorithm == null) {
+            return null;
+        }
+        return verifiers.computeIfAbsent(keyId, id -> JWT.require(algorithm).withIssuer(JwtTokenProvider.TOKEN_ISSUER).build());
+    }
+}
@@ -0,0 +1,132 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.dto.LoginAudit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Takes the login audit of sign-ins (last login time, login count and client) off the sign-in transaction.
+ * Sign-in only adds the login to a queue of quora.login-audit.queue-capacity entries; every
+ * quora.login-audit.flush-interval-ms the queue is drained in batches of quora.login-audit.batch-size logins,
+ * which are coalesced per user and written by the LoginAuditService, one transaction per batch.
+ * When the queue is full, logins are dropped and counted rather than slowing sign-in down, so the audit is best effort;
+ * the logins still queued on shutdown are written before the application stops.
+ */
+@Component
+public class LoginAuditQueue {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoginAuditQueue.class);
+
+    private static final int MAX_CLIENT_LENGTH = 500;
+
+    @Autowired
+    private LoginAuditService loginAuditService;
+
+    @Value("${quora.login-audit.queue-capacity:100000}")
+    private int queueCapacity;
+
+    @Value("${quora.login-audit.batch-size:1000}")
+    private int batchSize;
+
+    private BlockingQueue<LoginAudit> queue;
+
+    private final AtomicLong recordedCount = new AtomicLong();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final AtomicLong writtenCount = new AtomicLong();
+
+    private final AtomicLong failedCount = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<LoginAudit>(queueCapacity);
+    }
+
+    /**
+     * Queues a login for the login audit, without blocking.
+     *
+     * @param userId  id of the user who signed in
+     * @param loginAt time of the sign-in
+     * @param client  client the user signed in from, may be null
+     */
+    public void record(final Integer userId, final ZonedDateTime loginAt, final String client) {
+        String truncatedClient = client != null && client.length() > MAX_CLIENT_LENGTH ? client.substring(0, MAX_CLIENT_LENGTH) : client;
+        if (queue.offer(new LoginAudit(userId, loginAt, truncatedClient))) {
+            recordedCount.incrementAndGet();
+        } else {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Writes the queued logins, batch by batch, until the queue is empty.
+     * A batch that cannot be written is counted as failed and not retried.
+     */
+    @Scheduled(fixedDelayString = "${quora.login-audit.flush-interval-ms:1000}")
+    public void flush() {
+        List<LoginAudit> batch = new ArrayList<LoginAudit>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            Map<Integer, LoginAudit> loginAuditsByUser = new LinkedHashMap<Integer, LoginAudit>();
+            for (LoginAudit loginAudit : batch) {
+                LoginAudit coalesced = loginAuditsByUser.putIfAbsent(loginAudit.getUserId(), loginAudit);
+                if (coalesced != null) {
+                    coalesced.add(loginAudit);
+                }
+            }
+            try {
+                loginAuditService.writeLoginAudits(loginAuditsByUser.values());
+                writtenCount.addAndGet(batch.size());
+            } catch (DataAccessException e) {
+                failedCount.addAndGet(batch.size());
+                LOGGER.warn("Could not write the login audit of {} logins", batch.size(), e);
+            }
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getRecordedCount() {
+        return recordedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+}
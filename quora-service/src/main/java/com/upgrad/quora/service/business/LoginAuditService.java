@@ -0,0 +1,33 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.dto.LoginAudit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+@Service
+public class LoginAuditService {
+
+    @Autowired
+    private UserDao userDao;
+
+    /**
+     * Writes one batch of coalesced logins in one transaction, with one UPDATE per user.
+     *
+     * @param loginAudits logins to write, at most one per user
+     * @return number of users updated, users deleted since they signed in are skipped
+     */
+    @Transactional(propagation = Propagation.REQUIRED)
+    public int writeLoginAudits(final Collection<LoginAudit> loginAudits) {
+        int updated = 0;
+        for (LoginAudit loginAudit : loginAudits) {
+            updated += userDao.updateLoginAudit(loginAudit.getUserId(), loginAudit.getLastLoginAt(),
+                    loginAudit.getLogins(), loginAudit.getLastLoginClient());
+        }
+        return updated;
+    }
+}
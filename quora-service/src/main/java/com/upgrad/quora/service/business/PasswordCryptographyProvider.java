@@ -1,48 +1,165 @@
 package com.upgrad.quora.service.business;
 
 
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
 import java.util.Base64;
 import java.util.Random;
+import javax.annotation.PostConstruct;
 import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
 
+import com.upgrad.quora.service.exception.TooManyRequestsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 
+/**
+ * Hashes passwords with PBKDF2. Hashes are stored as "$pbkdf2-sha512$iterations$keyLength$hexHash" so that every
+ * password carries the parameters it was hashed with, which allows the parameters of new hashes to change at any
+ * time. Hashes stored before this format was introduced are plain hex and were hashed with 1000 iterations and
+ * a 64 bit key.
+ * The iterations are taken from quora.password-hashing.iterations. When no iteration count is configured they are
+ * calibrated on startup to take about quora.password-hashing.target-hash-ms on this host, which is meant for finding
+ * the value to configure: calibrated counts vary between restarts and hosts.
+ * A stored password is only hashed again when its iteration count is more than
+ * quora.password-hashing.rehash-tolerance-percent away from the current one, either way, so hosts with slightly
+ * different iteration counts do not keep rehashing each other's passwords, while lowering the configured count still
+ * brings the stored passwords down to it.
+ */
 @Component
 public class PasswordCryptographyProvider {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(PasswordCryptographyProvider.class);
+
     private static String SECRET_KEY_ALGORITHM = "PBKDF2WithHmacSHA512";
-    private static int HASHING_ITERATIONS = 1000;
-    private static int HASHING_KEY_LENGTH = 64;
+    private static String HASH_FORMAT_ID = "pbkdf2-sha512";
+    private static int LEGACY_HASHING_ITERATIONS = 1000;
+    private static int LEGACY_HASHING_KEY_LENGTH = 64;
+    private static int CALIBRATION_ITERATIONS = 10000;
     private final static char[] hexArray = "0123456789ABCDEF".toCharArray();
 
+    //SecretKeyFactory instances are not thread safe, each hashing thread keeps its own
+    private static final ThreadLocal<SecretKeyFactory> SECRET_KEY_FACTORY = ThreadLocal.withInitial(() -> {
+        try {
+            return SecretKeyFactory.getInstance(SECRET_KEY_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    });
+
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Value("${quora.password-hashing.iterations:0}")
+    private int hashingIterations;
+
+    @Value("${quora.password-hashing.key-length:512}")
+    private int hashingKeyLength;
+
+    @Value("${quora.password-hashing.target-hash-ms:50}")
+    private long targetHashMillis;
+
+    @Value("${quora.password-hashing.min-iterations:1000}")
+    private int minHashingIterations;
+
+    @Value("${quora.password-hashing.rehash-tolerance-percent:20}")
+    private int rehashTolerancePercent;
+
+    @PostConstruct
+    public void init() {
+        if (hashingIterations <= 0) {
+            hashingIterations = calibrateIterations();
+            LOGGER.warn("Calibrated password hashing to {} iterations for a target of {} ms, configure quora.password-hashing.iterations to pin it",
+                    hashingIterations, targetHashMillis);
+        }
+    }
+
     /**
-     * This method generates Salt and hashed Password
+     * This method generates Salt and hashed Password with the current hashing parameters
      *
      * @param password char array.
-     * @return String array with [0] encoded salt [1] hashed password.
+     * @return String array with [0] encoded salt [1] hashed password in the stored password format.
+     * @throws TooManyRequestsException if the password hashing pool is saturated.
      */
-    public String[] encrypt(final String password) {
+    public String[] encrypt(final String password) throws TooManyRequestsException {
         byte[] salt = generateSaltBytes();
-        byte[] hashedPassword = hashPassword(password.toCharArray(), salt);
-        return new String[]{getBase64EncodedBytesAsString(salt), bytesToHex(hashedPassword)};
+        final int iterations = hashingIterations;
+        final int keyLength = hashingKeyLength;
+        byte[] hashedPassword = passwordHashingExecutor.execute(() -> hashPassword(password.toCharArray(), salt, iterations, keyLength));
+        return new String[]{getBase64EncodedBytesAsString(salt),
+                "$" + HASH_FORMAT_ID + "$" + iterations + "$" + keyLength + "$" + bytesToHex(hashedPassword)};
     }
 
     /**
-     * This method re-generates hashed Password from raw-password and salt.
+     * This method re-generates the hashed Password from raw-password and salt with the parameters of the stored
+     * password and compares both in constant time.
      * This will be used during authentication.
      *
-     * @param password char array.
-     * @param salt     byte array.
-     * @return byte array of hashed password.
+     * @param password       raw password.
+     * @param salt           encoded salt.
+     * @param storedPassword hashed password as stored for the user.
+     * @return true if the password matches the stored password.
+     * @throws TooManyRequestsException if the password hashing pool is saturated.
      */
-    public static String encrypt(final String password, String salt) {
-        return bytesToHex(hashPassword(password.toCharArray(), getBase64DecodedStringAsBytes(salt)));
+    public boolean matches(final String password, final String salt, final String storedPassword) throws TooManyRequestsException {
+        final StoredPassword stored = StoredPassword.parse(storedPassword);
+        if (stored == null) {
+            return false;
+        }
+        byte[] saltBytes = getBase64DecodedStringAsBytes(salt);
+        byte[] hashedPassword = passwordHashingExecutor.execute(() -> hashPassword(password.toCharArray(), saltBytes, stored.iterations, stored.keyLength));
+        return MessageDigest.isEqual(bytesToHex(hashedPassword).getBytes(), stored.hexHash.getBytes());
+    }
+
+    /**
+     * @param storedPassword hashed password as stored for the user.
+     * @return true if the stored password is a legacy hash, uses another key length or was hashed with more than
+     * quora.password-hashing.rehash-tolerance-percent more or fewer iterations than the current ones, and should be
+     * hashed again.
+     */
+    public boolean needsRehash(final String storedPassword) {
+        StoredPassword stored = StoredPassword.parse(storedPassword);
+        if (stored == null || stored.legacy || stored.keyLength != hashingKeyLength) {
+            return true;
+        }
+        return Math.abs((long) stored.iterations - hashingIterations) * 100L > (long) hashingIterations * rehashTolerancePercent;
+    }
+
+    public int getHashingIterations() {
+        return hashingIterations;
+    }
+
+    public int getHashingKeyLength() {
+        return hashingKeyLength;
+    }
+
+    /**
+     * Measures the hash time on this host and scales the iterations to the target hash time,
+     * rounded down to a multiple of 1000 and at least quora.password-hashing.min-iterations.
+     */
+    private int calibrateIterations() {
+        char[] password = "calibration".toCharArray();
+        byte[] salt = generateSaltBytes();
+        //warm up so that the measurement is not dominated by interpretation and class loading
+        for (int i = 0; i < 3; i++) {
+            hashPassword(password, salt, CALIBRATION_ITERATIONS, hashingKeyLength);
+        }
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            hashPassword(password, salt, CALIBRATION_ITERATIONS, hashingKeyLength);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        long iterations = targetHashMillis * 1000000L * CALIBRATION_ITERATIONS / Math.max(1, bestNanos);
+        iterations = iterations / 1000 * 1000;
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(minHashingIterations, iterations));
     }
 
     /**
@@ -61,17 +178,19 @@ public class PasswordCryptographyProvider {
      * This method generates hashed Password
      *
      * @param password char array.
-     * @param salt     byte array.
+     * @param salt       byte array.
+     * @param iterations PBKDF2 iteration count.
+     * @param keyLength  length of the derived key in bits.
      * @return byte array of hashed password.
      */
-    private static byte[] hashPassword(final char[] password, final byte[] salt) {
+    private static byte[] hashPassword(final char[] password, final byte[] salt, final int iterations, final int keyLength) {
         try {
-            SecretKeyFactory skf = SecretKeyFactory.getInstance(SECRET_KEY_ALGORITHM);
-            PBEKeySpec spec = new PBEKeySpec(password, salt, HASHING_ITERATIONS, HASHING_KEY_LENGTH);
+            SecretKeyFactory skf = SECRET_KEY_FACTORY.get();
+            PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, keyLength);
             SecretKey key = skf.generateSecret(spec);
             byte[] res = key.getEncoded();
             return res;
-        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+        } catch (InvalidKeySpecException e) {
             throw new RuntimeException(e);
         }
     }
@@ -93,6 +212,48 @@ public class PasswordCryptographyProvider {
     private static byte[] getBase64DecodedStringAsBytes(String decode) {
         return Base64.getDecoder().decode(decode);
     }
-}
 
+    /**
+     * Parsed form of a stored password hash.
+     */
+    private static final class StoredPassword {
+
+        private final boolean legacy;
+
+        private final int iterations;
+
+        private final int keyLength;
+
+        private final String hexHash;
 
+        private StoredPassword(final boolean legacy, final int iterations, final int keyLength, final String hexHash) {
+            this.legacy = legacy;
+            this.iterations = iterations;
+            this.keyLength = keyLength;
+            this.hexHash = hexHash;
+        }
+
+        /**
+         * @return the parsed hash, or null if the stored password is missing or uses an unknown format
+         */
+        private static StoredPassword parse(final String storedPassword) {
+            if (storedPassword == null || storedPassword.isEmpty()) {
+                return null;
+            }
+            if (!storedPassword.startsWith("$")) {
+                return new StoredPassword(true, LEGACY_HASHING_ITERATIONS, LEGACY_HASHING_KEY_LENGTH, storedPassword);
+            }
+            String[] parts = storedPassword.split("\\$");
+            if (parts.length != 5 || !HASH_FORMAT_ID.equals(parts[1])) {
+                return null;
+            }
+            try {
+                int iterations = Integer.parseInt(parts[2]);
+                int keyLength = Integer.parseInt(parts[3]);
+                return iterations > 0 && keyLength > 0 ? new StoredPassword(false, iterations, keyLength, parts[4]) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.GenericErrorCode;
+import com.upgrad.quora.service.common.UnexpectedException;
+import com.upgrad.quora.service.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dedicated, size-bounded pool for the CPU heavy password hashing of sign-up and sign-in, so that a login storm
+ * cannot occupy the servlet threads serving other traffic. Work beyond the pool size waits in a queue of
+ * quora.password-hashing.queue-capacity entries, anything beyond that is rejected immediately with a
+ * TooManyRequestsException, as is work that does not complete within quora.password-hashing.timeout-ms.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    @Value("${quora.password-hashing.pool-size:0}")
+    private int poolSize;
+
+    @Value("${quora.password-hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${quora.password-hashing.timeout-ms:5000}")
+    private long timeoutMillis;
+
+    private ThreadPoolExecutor executor;
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private final AtomicLong timedOutCount = new AtomicLong();
+
+    private final AtomicLong hashCount = new AtomicLong();
+
+    private final AtomicLong totalHashNanos = new AtomicLong();
+
+    private final AtomicLong maxHashNanos = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.prestartAllCoreThreads();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs the hashing task on the pool and waits for its result.
+     *
+     * @param task hashing task
+     * @return result of the task
+     * @throws TooManyRequestsException if the pool queue is full or the task does not complete in time
+     */
+    public <T> T execute(final Callable<T> task) throws TooManyRequestsException {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    recordHash(System.nanoTime() - start);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCount.incrementAndGet();
+            throw new TooManyRequestsException("HSH-001", "Too many requests, please try again later");
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOutCount.incrementAndGet();
+            throw new TooManyRequestsException("HSH-002", "Request timed out, please try again later");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new UnexpectedException(GenericErrorCode.GEN_001, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new UnexpectedException(GenericErrorCode.GEN_001, e.getCause());
+        }
+    }
+
+    private void recordHash(final long nanos) {
+        hashCount.incrementAndGet();
+        totalHashNanos.addAndGet(nanos);
+        maxHashNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public int getPoolSize() {
+        return executor.getCorePoolSize();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getTimedOutCount() {
+        return timedOutCount.get();
+    }
+
+    public long getHashCount() {
+        return hashCount.get();
+    }
+
+    public double getAverageHashMillis() {
+        long count = hashCount.get();
+        return count == 0 ? 0 : totalHashNanos.get() / 1e6 / count;
+    }
+
+    public double getMaxHashMillis() {
+        return maxHashNanos.get() / 1e6;
+    }
+}
@@ -0,0 +1,52 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.dao.QuestionDao;
+import com.upgrad.quora.service.dto.QuestionSummary;
+import com.upgrad.quora.service.entity.AnswerEntity;
+import com.upgrad.quora.service.entity.QuestionEntity;
+import com.upgrad.quora.service.entity.UserEntity;
+import com.upgrad.quora.service.search.SearchHit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Search backend querying the GIN indexed search vectors of the question and answer tables, selected by
+ * quora.search.backend=postgres. Questions are ranked by the ts_rank of the question and its matching answers.
+ * No index is held in memory and nothing is built at startup, which suits small deployments; the search vectors are
+ * generated columns, so Postgres keeps them up to date and the change notifications need no handling.
+ */
+@Service
+@ConditionalOnProperty(name = "quora.search.backend", havingValue = "postgres")
+public class PostgresSearchService extends AbstractSearchService {
+
+    @Autowired
+    private QuestionDao questionDao;
+
+    @Override
+    protected List<SearchHit<QuestionSummary>> findQuestions(final String query, final double afterScore, final int afterId, final int limit) {
+        return questionDao.searchQuestions(query, afterScore, afterId, limit);
+    }
+
+    @Override
+    public void questionSaved(final QuestionEntity question) {
+    }
+
+    @Override
+    public void questionDeleted(final QuestionEntity question) {
+    }
+
+    @Override
+    public void answerSaved(final AnswerEntity answer) {
+    }
+
+    @Override
+    public void answerDeleted(final AnswerEntity answer) {
+    }
+
+    @Override
+    public void userDeleted(final UserEntity user) {
+    }
+}
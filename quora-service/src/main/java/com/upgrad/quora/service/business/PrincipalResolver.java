@@ -0,0 +1,85 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.entity.UserAuthTokenEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves the access token of a request to its RequestPrincipal. The principal is kept as an attribute of the
+ * current request, so however many times a request resolves its token, the UserAuthTokenService is asked once.
+ * Outside of a request the token is resolved on every call.
+ * Every token resolution is counted and timed, so the authorization cost of all requests can be read in one place.
+ */
+@Service
+public class PrincipalResolver {
+
+    /**
+     * Request attribute holding the RequestPrincipal of the current request once it has been resolved.
+     */
+    public static final String PRINCIPAL_ATTRIBUTE = PrincipalResolver.class.getName() + ".principal";
+
+    @Autowired
+    private UserAuthTokenService userAuthTokenService;
+
+    private final AtomicLong resolutions = new AtomicLong();
+
+    private final AtomicLong resolutionNanos = new AtomicLong();
+
+    private final AtomicLong reuses = new AtomicLong();
+
+    /**
+     * @param accessToken access token of the request, may be null
+     * @return principal of the token, not signed in if the token is unknown
+     */
+    public RequestPrincipal resolve(final String accessToken) {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null) {
+            Object resolved = requestAttributes.getAttribute(PRINCIPAL_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (resolved instanceof RequestPrincipal && isSameToken((RequestPrincipal) resolved, accessToken)) {
+                reuses.incrementAndGet();
+                return (RequestPrincipal) resolved;
+            }
+        }
+
+        long start = System.nanoTime();
+        UserAuthTokenEntity userAuthTokenEntity = userAuthTokenService.getUserAuthToken(accessToken);
+        resolutionNanos.addAndGet(System.nanoTime() - start);
+        resolutions.incrementAndGet();
+        RequestPrincipal principal = userAuthTokenEntity == null
+                ? RequestPrincipal.anonymous(accessToken)
+                : RequestPrincipal.of(userAuthTokenEntity);
+        if (requestAttributes != null) {
+            requestAttributes.setAttribute(PRINCIPAL_ATTRIBUTE, principal, RequestAttributes.SCOPE_REQUEST);
+        }
+        return principal;
+    }
+
+    /**
+     * @return number of access tokens resolved through the UserAuthTokenService
+     */
+    public long getResolutionCount() {
+        return resolutions.get();
+    }
+
+    /**
+     * @return total time spent resolving access tokens, in nanoseconds
+     */
+    public long getResolutionNanos() {
+        return resolutionNanos.get();
+    }
+
+    /**
+     * @return number of resolutions answered with the principal already resolved for the request
+     */
+    public long getReuseCount() {
+        return reuses.get();
+    }
+
+    private static boolean isSameToken(final RequestPrincipal principal, final String accessToken) {
+        return accessToken == null ? principal.getAccessToken() == null : accessToken.equals(principal.getAccessToken());
+    }
+}
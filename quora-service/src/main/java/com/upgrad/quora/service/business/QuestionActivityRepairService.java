@@ -0,0 +1,27 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.dao.QuestionDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class QuestionActivityRepairService {
+
+    @Autowired
+    private QuestionDao questionDao;
+
+    /**
+     * Recomputes the answer count and latest answer date of one chunk of questions in its own short transaction, so
+     * that answers of other questions are never held up and those of the chunk only briefly.
+     *
+     * @param fromId questions with a higher id are repaired
+     * @param toId   questions with this or a lower id are repaired
+     * @return number of questions whose answer count or latest answer date was wrong
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int repairChunk(final int fromId, final int toId) {
+        return questionDao.repairAnswerActivity(fromId, toId);
+    }
+}
@@ -0,0 +1,111 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.dao.QuestionDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recomputes the answer_count and last_answer_at columns of the question table from the answer table, which the
+ * AnswerService keeps up to date when answers are created or deleted but which a change made outside the application
+ * would leave wrong. Every quora.question-activity-repair.interval-ms, the questions are repaired in chunks of
+ * quora.question-activity-repair.chunk-size consecutive ids, each in its own transaction, with a pause of
+ * quora.question-activity-repair.chunk-pause-ms in between, so answers are never held up for long.
+ */
+@Component
+public class QuestionActivityRepairer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QuestionActivityRepairer.class);
+
+    @Autowired
+    private QuestionDao questionDao;
+
+    @Autowired
+    private QuestionActivityRepairService questionActivityRepairService;
+
+    @Value("${quora.question-activity-repair.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${quora.question-activity-repair.chunk-pause-ms:50}")
+    private long chunkPauseMillis;
+
+    private final AtomicLong runCount = new AtomicLong();
+
+    private final AtomicLong repairedCount = new AtomicLong();
+
+    private final AtomicLong failedRunCount = new AtomicLong();
+
+    private volatile long lastRunRepairedCount;
+
+    private volatile long lastRunMillis;
+
+    private final AtomicLong maxRunMillis = new AtomicLong();
+
+    /**
+     * Repairs all questions existing when the run starts, chunk by chunk.
+     *
+     * @return number of questions whose answer count or latest answer date was wrong
+     */
+    @Scheduled(initialDelayString = "${quora.question-activity-repair.initial-delay-ms:600000}", fixedDelayString = "${quora.question-activity-repair.interval-ms:86400000}")
+    public long repair() {
+        long start = System.nanoTime();
+
+        long repaired = 0;
+        try {
+            Integer maxId = questionDao.getMaxQuestionId();
+            for (int fromId = 0; maxId != null && fromId < maxId; fromId += chunkSize) {
+                if (fromId > 0) {
+                    Thread.sleep(chunkPauseMillis);
+                }
+                int fixed = questionActivityRepairService.repairChunk(fromId, (int) Math.min((long) fromId + chunkSize, maxId));
+                repaired += fixed;
+                repairedCount.addAndGet(fixed);
+            }
+        } catch (DataAccessException e) {
+            failedRunCount.incrementAndGet();
+            LOGGER.warn("Question activity repair stopped after {} questions", repaired, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (repaired > 0) {
+            LOGGER.info("Repaired the answer count or latest answer date of {} questions", repaired);
+        }
+        long millis = (System.nanoTime() - start) / 1000000;
+        runCount.incrementAndGet();
+        lastRunRepairedCount = repaired;
+        lastRunMillis = millis;
+        maxRunMillis.accumulateAndGet(millis, Math::max);
+        return repaired;
+    }
+
+    public long getRunCount() {
+        return runCount.get();
+    }
+
+    public long getRepairedCount() {
+        return repairedCount.get();
+    }
+
+    public long getFailedRunCount() {
+        return failedRunCount.get();
+    }
+
+    public long getLastRunRepairedCount() {
+        return lastRunRepairedCount;
+    }
+
+    public long getLastRunMillis() {
+        return lastRunMillis;
+    }
+
+    public long getMaxRunMillis() {
+        return maxRunMillis.get();
+    }
+}
@@ -0,0 +1,219 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.cache.AfterCommit;
+import com.upgrad.quora.service.cache.RecencyList;
+import com.upgrad.quora.service.common.PageCursor;
+import com.upgrad.quora.service.dao.QuestionDao;
+import com.upgrad.quora.service.dto.QuestionFeedItem;
+import com.upgrad.quora.service.entity.QuestionEntity;
+import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import com.upgrad.quora.service.exception.InvalidPageRequestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves the question feed, the newest questions by date, from a RecencyList of the quora.feed.capacity newest
+ * questions held in memory. The list is loaded from the database when the application context starts and kept up to
+ * date by the QuestionService and AnswerService, which pass every created, edited and deleted question and every
+ * created and deleted answer here; changes made in a transaction are applied once it commits.
+ * Every instance keeps its own list and sees only its own changes, so the list is also reloaded every
+ * quora.feed.reload-interval-ms, which bounds how long changes made by other instances go unnoticed.
+ * A feed request is answered without a database query unless deleted questions left the list shorter than the request
+ * while older questions exist, or an answer count could not be applied, in which case the list is reloaded first.
+ */
+@Service
+public class QuestionFeedService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QuestionFeedService.class);
+
+    @Autowired
+    private QuestionDao questionDao;
+
+    @Value("${quora.feed.capacity:1000}")
+    private int capacity;
+
+    @Value("${quora.feed.default-limit:20}")
+    private int defaultLimit;
+
+    private RecencyList<QuestionFeedItem> feed;
+
+    //true while the list holds every question, so a list shorter than a request needs no reload
+    private volatile boolean complete;
+
+    private volatile boolean loaded;
+
+    //true when an answer count change could not be applied, so the next request reloads the list
+    private volatile boolean stale;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong reloadCount = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        feed = new RecencyList<QuestionFeedItem>(capacity);
+    }
+
+    /**
+     * Loads the newest questions into the feed.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void loadFeed() {
+        if (!loaded) {
+            reload();
+        }
+    }
+
+    /**
+     * Reloads the feed from the database, picking up the changes made by other instances.
+     */
+    @Scheduled(initialDelayString = "${quora.feed.reload-interval-ms:60000}", fixedDelayString = "${quora.feed.reload-interval-ms:60000}")
+    public void reloadFeed() {
+        reload();
+    }
+
+    /**
+     * Returns the newest questions by date.
+     *
+     * @param limit     number of questions, or null for quora.feed.default-limit; capped at quora.feed.capacity
+     * @param principal principal of the request
+     * @return the newest questions, newest first
+     */
+    public List<QuestionFeedItem> getFeed(final Integer limit, final RequestPrincipal principal) throws AuthorizationFailedException, InvalidPageRequestException {
+        principal.checkSignedIn("User is signed out.Sign in first to get the question feed");
+
+        int feedSize = PageCursor.pageSize(limit, defaultLimit, capacity);
+        if (stale || (feed.size() < feedSize && !complete)) {
+            reload();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return feed.newest(feedSize);
+    }
+
+    /**
+     * Adds a created question to the feed.
+     *
+     * @param question created question with its id, uuid, content and date
+     * @param userUuid uuid of the author of the question
+     */
+    public void questionCreated(final QuestionEntity question, final String userUuid) {
+        QuestionFeedItem item = new QuestionFeedItem(question.getId(), question.getUuid(), question.getContent(), question.getDate(), userUuid, 0);
+        afterCommit(() -> {
+            if (feed.put(item.getId(), timeMillis(item), item)) {
+                complete = false;
+            }
+        });
+    }
+
+    /**
+     * Updates the content of an edited question in the feed.
+     *
+     * @param question edited question
+     */
+    public void questionEdited(final QuestionEntity question) {
+        Integer id = question.getId();
+        String content = question.getContent();
+        afterCommit(() -> feed.update(id, item -> item.withContent(content)));
+    }
+
+    /**
+     * Removes a deleted question from the feed.
+     *
+     * @param question deleted question
+     */
+    public void questionDeleted(final QuestionEntity question) {
+        Integer id = question.getId();
+        afterCommit(() -> feed.remove(id));
+    }
+
+    /**
+     * Counts a created answer of a question of the feed.
+     *
+     * @param questionId id of the question of the answer
+     */
+    public void answerCreated(final Integer questionId) {
+        changeAnswerCount(questionId, 1);
+    }
+
+    /**
+     * Uncounts a deleted answer of a question of the feed.
+     *
+     * @param questionId id of the question of the answer
+     */
+    public void answerDeleted(final Integer questionId) {
+        changeAnswerCount(questionId, -1);
+    }
+
+    public int getFeedSize() {
+        return feed.size();
+    }
+
+    /**
+     * @return number of feed requests answered from memory
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return number of times the feed was loaded from the database, at startup included
+     */
+    public long getReloadCount() {
+        return reloadCount.get();
+    }
+
+    /**
+     * Applies a change of the answer count of a question once the transaction commits. The answer counts read by a
+     * reload that completed in between may already include the change, so the change is not applied then and the list
+     * is reloaded by the next request instead, which cannot count the change twice.
+     */
+    private void changeAnswerCount(final Integer questionId, final int answers) {
+        long reloadsBeforeCommit = reloadCount.get();
+        afterCommit(() -> {
+            if (reloadCount.get() == reloadsBeforeCommit) {
+                feed.update(questionId, item -> item.withAnswerCountChangedBy(answers));
+            } else {
+                stale = true;
+            }
+        });
+    }
+
+    private synchronized void reload() {
+        List<QuestionFeedItem> items = questionDao.getNewestQuestionFeedItems(capacity);
+        feed.replaceAll(items, QuestionFeedItem::getId, QuestionFeedService::timeMillis);
+        complete = items.size() < capacity;
+        loaded = true;
+        stale = false;
+        reloadCount.incrementAndGet();
+        LOGGER.debug("Loaded {} questions into the feed", items.size());
+    }
+
+    private static long timeMillis(final QuestionFeedItem item) {
+        return item.getDate() == null ? 0 : item.getDate().toInstant().toEpochMilli();
+    }
+
+    //changes wait for a reload in progress, so that they are not lost when it replaces the list
+    private void afterCommit(final Runnable action) {
+        Runnable change = () -> {
+            synchronized (this) {
+                action.run();
+            }
+        };
+        if (AfterCommit.isDeferred()) {
+            AfterCommit.run(change);
+        } else {
+            change.run();
+        }
+    }
+}
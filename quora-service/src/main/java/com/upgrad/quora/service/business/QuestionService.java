@@ -1,19 +1,28 @@
 package com.upgrad.quora.service.business;
 
+import com.upgrad.quora.service.common.KeysetPage;
+import com.upgrad.quora.service.common.PageCursor;
 import com.upgrad.quora.service.dao.QuestionDao;
 import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.dto.QuestionSummary;
 import com.upgrad.quora.service.entity.QuestionEntity;
-import com.upgrad.quora.service.entity.UserAuthTokenEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import com.upgrad.quora.service.exception.InvalidPageRequestException;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 public class QuestionService {
@@ -24,107 +33,197 @@ public class QuestionService {
     @Autowired
     private UserDao userDao;
 
-    @Transactional(propagation = Propagation.REQUIRED)
-    public QuestionEntity createQuestion(QuestionEntity questionEntity,String authorization) throws AuthorizationFailedException {
+    @Autowired
+    private Validator validator;
 
-        UserAuthTokenEntity userAuthTokenEntity = userDao.getUserAuthToken(authorization);
+    @Autowired
+    private SearchService searchService;
 
-        if (userAuthTokenEntity == null) {
-            throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
-        }
+    @Autowired
+    private QuestionFeedService questionFeedService;
 
-        if (userAuthTokenEntity.getLogoutAt() != null) {
-            throw new AuthorizationFailedException("ATHR-002", "User has not signed in");
-        }
+    @Value("${quora.pagination.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${quora.pagination.max-page-size:200}")
+    private int maxPageSize;
+
+    @Transactional(propagation = Propagation.REQUIRED)
+    public QuestionEntity createQuestion(QuestionEntity questionEntity, RequestPrincipal principal) throws AuthorizationFailedException {
+        principal.checkSignedIn("User has not signed in");
 
-        questionEntity.setUser(userAuthTokenEntity.getUser());
+        questionEntity.setUser(userDao.getUserReference(principal.getUserId()));
         questionDao.createQuestion(questionEntity);
+        searchService.questionSaved(questionEntity);
+        questionFeedService.questionCreated(questionEntity, principal.getUserUuid());
         return questionEntity;
     }
 
-    public List<QuestionEntity> getAllQuestion(String authorization) throws AuthorizationFailedException {
-        UserAuthTokenEntity userAuthTokenEntity = userDao.getUserAuthToken(authorization);
-
-        if(userAuthTokenEntity == null) {
-            throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
+    /**
+     * Creates many questions in one transaction, inserted in JDBC batches.
+     * Questions without a user are posted by the signed in user.
+     *
+     * @param questionEntities questions to create
+     * @param principal        principal of the request
+     * @return the created questions
+     */
+    @Transactional(propagation = Propagation.REQUIRED)
+    public List<QuestionEntity> createQuestions(final List<QuestionEntity> questionEntities, final RequestPrincipal principal) throws AuthorizationFailedException {
+        principal.checkSignedIn("User has not signed in");
+
+        UserEntity user = userDao.getUserReference(principal.getUserId());
+        List<String> userUuids = new ArrayList<String>(questionEntities.size());
+        for (QuestionEntity questionEntity : questionEntities) {
+            if (questionEntity.getUser() == null) {
+                questionEntity.setUser(user);
+                userUuids.add(principal.getUserUuid());
+            } else {
+                userUuids.add(questionEntity.getUser().getUuid());
+            }
         }
+        return questionsCreated(questionDao.createQuestions(questionEntities), userUuids);
+    }
 
-        if(userAuthTokenEntity.getLogoutAt() != null){
-            throw new AuthorizationFailedException("ATHR-002","User is signed out.Sign in first to get all questions");
-        }
+    /**
+     * Checks that the principal is a signed in admin, as only admins can import questions in bulk.
+     *
+     * @param principal principal of the request
+     */
+    public void authorizeQuestionImport(final RequestPrincipal principal) throws AuthorizationFailedException {
+        principal.checkAdmin("User is signed out.Sign in first to import questions");
+    }
 
-        return questionDao.getAllQuestions();
+    /**
+     * Checks the question against the constraints of QuestionEntity before it is queued for a bulk import,
+     * so that one invalid question does not fail the whole batch.
+     *
+     * @param questionEntity question to check
+     */
+    public void validateQuestion(final QuestionEntity questionEntity) throws InvalidQuestionException {
+        Set<ConstraintViolation<QuestionEntity>> violations = validator.validate(questionEntity);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<QuestionEntity> violation = violations.iterator().next();
+            throw new InvalidQuestionException("QUES-002", "Question " + violation.getPropertyPath() + " " + violation.getMessage());
+        }
     }
 
+    /**
+     * Imports one batch of a bulk import in its own transaction. Questions without a user are posted by the admin.
+     *
+     * @param questionEntities validated questions to create
+     * @param principal        principal of the admin
+     * @return the created questions
+     */
     @Transactional(propagation = Propagation.REQUIRED)
-    public QuestionEntity editQuestionContent(String questUuid,final QuestionEntity questionEntity, final String authorizationToken) throws AuthorizationFailedException, InvalidQuestionException {
-        UserAuthTokenEntity userAuth = userDao.getUserAuthToken(authorizationToken);
-        if (userAuth == null) {
-            throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
+    public List<QuestionEntity> importQuestions(final List<QuestionEntity> questionEntities, final RequestPrincipal principal) throws AuthorizationFailedException {
+        authorizeQuestionImport(principal);
+
+        UserEntity admin = userDao.getUserReference(principal.getUserId());
+        List<String> userUuids = new ArrayList<String>(questionEntities.size());
+        for (QuestionEntity questionEntity : questionEntities) {
+            if (questionEntity.getUser() == null) {
+                questionEntity.setUser(admin);
+                userUuids.add(principal.getUserUuid());
+            } else {
+                userUuids.add(questionEntity.getUser().getUuid());
+            }
         }
+        return questionsCreated(questionDao.createQuestions(questionEntities), userUuids);
+    }
 
-        if (userAuth.getLogoutAt() != null && userAuth.getLogoutAt().isAfter(userAuth.getLoginAt())) {
-            throw new AuthorizationFailedException("ATHR-002", "User is signed out.Sign in first to edit a question");
+    /**
+     * Returns one page of all questions, newest first.
+     *
+     * @param principal principal of the request
+     * @param cursor    cursor returned with the previous page, or null for the first page
+     * @param limit     requested page size, or null for the default page size; capped at quora.pagination.max-page-size
+     * @return the page of questions and the cursor of the next page
+     */
+    public KeysetPage<QuestionSummary> getAllQuestion(RequestPrincipal principal, String cursor, Integer limit) throws AuthorizationFailedException, InvalidPageRequestException {
+        principal.checkSignedIn("User is signed out.Sign in first to get all questions");
+
+        int pageSize = PageCursor.pageSize(limit, defaultPageSize, maxPageSize);
+        Integer beforeId = cursor == null || cursor.isEmpty() ? null : PageCursor.decodeId(cursor);
+
+        List<QuestionSummary> questions = questionDao.getQuestionsPage(beforeId, pageSize + 1);
+        String nextCursor = null;
+        if (questions.size() > pageSize) {
+            questions = questions.subList(0, pageSize);
+            nextCursor = PageCursor.encode(questions.get(pageSize - 1).getId());
         }
+        return new KeysetPage<QuestionSummary>(questions, nextCursor);
+    }
+
+    /**
+     * Passes all questions, newest first, to the consumer one by one without loading them all into memory.
+     * The authorization is checked before the first question is read.
+     *
+     * @param principal principal of the request
+     * @param consumer  consumer of the question summaries
+     */
+    @Transactional(readOnly = true)
+    public void streamAllQuestions(RequestPrincipal principal, Consumer<QuestionSummary> consumer) throws AuthorizationFailedException {
+        principal.checkSignedIn("User is signed out.Sign in first to get all questions");
+        questionDao.scrollAllQuestions(consumer);
+    }
+
+    @Transactional(propagation = Propagation.REQUIRED)
+    public QuestionEntity editQuestionContent(String questUuid,final QuestionEntity questionEntity, final RequestPrincipal principal) throws AuthorizationFailedException, InvalidQuestionException {
+        principal.checkSignedIn("User is signed out.Sign in first to edit a question");
 
-        QuestionEntity currentQuestionEntity = questionDao.getQuestionByUuid(questUuid);
+        QuestionEntity currentQuestionEntity = questionDao.getManagedQuestionByUuid(questUuid);
 
         if (currentQuestionEntity == null) {
             throw new InvalidQuestionException("QUES-001", "Entered question uuid does not exist");
         }
 
-        if (!currentQuestionEntity.getUser().getUuid().equals(userAuth.getUser().getUuid())) {
+        if (!currentQuestionEntity.getUser().getUuid().equals(principal.getUserUuid())) {
             throw new AuthorizationFailedException("ATHR-003", "Only the question owner can edit the question");
         }
         currentQuestionEntity.setContent(questionEntity.getContent());
+        searchService.questionSaved(currentQuestionEntity);
+        questionFeedService.questionEdited(currentQuestionEntity);
         return questionDao.editQuestionContent(currentQuestionEntity);
     }
 
     @Transactional(propagation = Propagation.REQUIRED)
-    public QuestionEntity deleteQuestion(String questUuid, String token) throws AuthorizationFailedException, InvalidQuestionException {
-
-        UserAuthTokenEntity userAuth = userDao.getUserAuthToken(token);
-        if (userAuth == null) {
-            throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
-        }
+    public QuestionEntity deleteQuestion(String questUuid, RequestPrincipal principal) throws AuthorizationFailedException, InvalidQuestionException {
+        principal.checkSignedIn("User is signed out.Sign in first to delete the question");
 
-        if (userAuth.getLogoutAt() != null) {
-            throw new AuthorizationFailedException("ATHR-002", "User is signed out.Sign in first to delete the question");
-        }
-
-        QuestionEntity questionEntity = questionDao.getQuestionByUuid(questUuid);
+        QuestionEntity questionEntity = questionDao.getManagedQuestionByUuid(questUuid);
 
         if (questionEntity == null) {
             throw new InvalidQuestionException("QUES-001", "Entered question uuid does not exist");
         }
 
-        if (!questionEntity.getUser().getUuid().equals(userAuth.getUser().getUuid()) && !userAuth.getUser().getRole().equals("admin")) {
+        if (!questionEntity.getUser().getUuid().equals(principal.getUserUuid()) && !principal.isAdmin()) {
             throw new AuthorizationFailedException("ATHR-003", "Only the question owner or admin can delete the question");
         }
 
+        searchService.questionDeleted(questionEntity);
+        questionFeedService.questionDeleted(questionEntity);
         return questionDao.deleteQuestion(questionEntity);
 
     }
 
     @Transactional(propagation = Propagation.REQUIRED)
-    public List<QuestionEntity> getAllQuestionByUser(String uuid, String token) throws AuthorizationFailedException, UserNotFoundException {
-
-        UserAuthTokenEntity userAuth = userDao.getUserAuthToken(token);
-        if (userAuth == null) {
-            throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
-        }
-
-        if (userAuth.getLogoutAt() != null) {
-            throw new AuthorizationFailedException("ATHR-002", "User is signed out.Sign in first to get all questions");
-        }
+    public List<QuestionSummary> getAllQuestionByUser(String uuid, RequestPrincipal principal) throws AuthorizationFailedException, UserNotFoundException {
+        principal.checkSignedIn("User is signed out.Sign in first to get all questions");
 
         UserEntity userEntity = userDao.getUserByUserid(uuid);
         if (userEntity == null) {
             throw new UserNotFoundException("USR-001", "User with entered uuid whose question details are to be seen does not exist");
         }
 
-        return questionDao.getAllQuestionsByUser(userAuth.getUser());
+        return questionDao.getAllQuestionsByUser(userDao.getUserReference(principal.getUserId()));
 
     }
 
+    private List<QuestionEntity> questionsCreated(final List<QuestionEntity> questionEntities, final List<String> userUuids) {
+        for (int i = 0; i < questionEntities.size(); i++) {
+            searchService.questionSaved(questionEntities.get(i));
+            questionFeedService.questionCreated(questionEntities.get(i), userUuids.get(i));
+        }
+        return questionEntities;
+    }
 }
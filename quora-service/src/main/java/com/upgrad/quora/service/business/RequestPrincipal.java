@@ -0,0 +1,130 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.entity.UserAuthTokenEntity;
+import com.upgrad.quora.service.exception.AuthorizationFailedException;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Immutable view of the caller of a request, as identified by its access token. Resolved once per request by
+ * the PrincipalResolver and passed to the services, which check it with checkSignedIn or checkAdmin instead of
+ * looking the access token up again. A principal of an unknown token is not signed in.
+ * The expiry of the token is kept in epoch millis, so that checking it on every call takes no date arithmetic.
+ */
+public final class RequestPrincipal {
+
+    private static final String ADMIN_ROLE = "admin";
+
+    private final String accessToken;
+
+    private final Integer userId;
+
+    private final String userUuid;
+
+    private final String role;
+
+    private final ZonedDateTime loginAt;
+
+    private final ZonedDateTime expiresAt;
+
+    private final ZonedDateTime logoutAt;
+
+    private final long expiresAtMillis;
+
+    private RequestPrincipal(final String accessToken, final Integer userId, final String userUuid, final String role,
+                             final ZonedDateTime loginAt, final ZonedDateTime expiresAt, final ZonedDateTime logoutAt) {
+        this.accessToken = accessToken;
+        this.userId = userId;
+        this.userUuid = userUuid;
+        this.role = role;
+        this.loginAt = loginAt;
+        this.expiresAt = expiresAt;
+        this.logoutAt = logoutAt;
+        this.expiresAtMillis = expiresAt == null ? Long.MAX_VALUE : expiresAt.toInstant().toEpochMilli();
+    }
+
+    /**
+     * @param userAuthTokenEntity user auth details of the access token, with its user
+     * @return principal of the user the access token was issued to
+     */
+    public static RequestPrincipal of(final UserAuthTokenEntity userAuthTokenEntity) {
+        return new RequestPrincipal(userAuthTokenEntity.getAccessToken(),
+                userAuthTokenEntity.getUser().getId(),
+                userAuthTokenEntity.getUser().getUuid(),
+                userAuthTokenEntity.getUser().getRole(),
+                userAuthTokenEntity.getLoginAt(),
+                userAuthTokenEntity.getExpiresAt(),
+                userAuthTokenEntity.getLogoutAt());
+    }
+
+    /**
+     * @param accessToken access token that did not resolve to a user, may be null
+     * @return principal that is not signed in
+     */
+    public static RequestPrincipal anonymous(final String accessToken) {
+        return new RequestPrincipal(accessToken, null, null, null, null, null, null);
+    }
+
+    /**
+     * @param signedOutMessage error message if the token has been signed out or has expired
+     * @throws AuthorizationFailedException ATHR-001 if the token is unknown, ATHR-002 if it has been signed out or has expired
+     */
+    public void checkSignedIn(final String signedOutMessage) throws AuthorizationFailedException {
+        if (userId == null) {
+            throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
+        }
+        if (logoutAt != null || isExpired()) {
+            throw new AuthorizationFailedException("ATHR-002", signedOutMessage);
+        }
+    }
+
+    /**
+     * @param signedOutMessage error message if the token has been signed out or has expired
+     * @throws AuthorizationFailedException as checkSignedIn, or ATHR-003 if the user is not an admin
+     */
+    public void checkAdmin(final String signedOutMessage) throws AuthorizationFailedException {
+        checkSignedIn(signedOutMessage);
+        if (!isAdmin()) {
+            throw new AuthorizationFailedException("ATHR-003", "Unauthorized Access, Entered user is not an admin");
+        }
+    }
+
+    /**
+     * @return true if the token has expired
+     */
+    public boolean isExpired() {
+        return expiresAtMillis <= System.currentTimeMillis();
+    }
+
+    public boolean isAdmin() {
+        return ADMIN_ROLE.equals(role);
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public String getUserUuid() {
+        return userUuid;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public ZonedDateTime getLoginAt() {
+        return loginAt;
+    }
+
+    public ZonedDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public ZonedDateTime getLogoutAt() {
+        return logoutAt;
+    }
+}
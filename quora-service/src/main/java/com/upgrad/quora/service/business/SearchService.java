@@ -0,0 +1,66 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.KeysetPage;
+import com.upgrad.quora.service.dto.QuestionSummary;
+import com.upgrad.quora.service.entity.AnswerEntity;
+import com.upgrad.quora.service.entity.QuestionEntity;
+import com.upgrad.quora.service.entity.UserEntity;
+import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import com.upgrad.quora.service.exception.InvalidPageRequestException;
+import com.upgrad.quora.service.search.SearchHit;
+
+/**
+ * Full-text search over the content of the questions and their answers. A question matches when it or one of its
+ * answers contains any of the words of the query. The backend is selected by quora.search.backend: "index" searches
+ * an in-memory inverted index (IndexSearchService), "postgres" the GIN indexed search vectors of the question and
+ * answer tables (PostgresSearchService).
+ */
+public interface SearchService {
+
+    /**
+     * Returns one page of the questions matching the query, best match first.
+     *
+     * @param query     words to search for in the questions and their answers
+     * @param cursor    cursor returned with the previous page, or null for the first page
+     * @param limit     page size, or null for quora.search.default-limit; capped at quora.search.max-limit
+     * @param principal principal of the request
+     * @return the page of matching questions with their scores and the cursor of the next page
+     */
+    KeysetPage<SearchHit<QuestionSummary>> searchQuestions(String query, String cursor, Integer limit, RequestPrincipal principal) throws AuthorizationFailedException, InvalidPageRequestException;
+
+    /**
+     * Called for every created or edited question, in the transaction saving it.
+     *
+     * @param question question with its id, uuid and content
+     */
+    void questionSaved(QuestionEntity question);
+
+    /**
+     * Called for every deleted question, in the transaction deleting it. The answers of the question are deleted with it.
+     *
+     * @param question deleted question
+     */
+    void questionDeleted(QuestionEntity question);
+
+    /**
+     * Called for every created or edited answer, in the transaction saving it.
+     *
+     * @param answer answer with its uuid, text and question
+     */
+    void answerSaved(AnswerEntity answer);
+
+    /**
+     * Called for every deleted answer, in the transaction deleting it.
+     *
+     * @param answer deleted answer
+     */
+    void answerDeleted(AnswerEntity answer);
+
+    /**
+     * Called for every deleted user, in the transaction deleting it and before the user is removed. The questions and
+     * answers of the user, and the answers to its questions, are deleted with it.
+     *
+     * @param user user to be deleted
+     */
+    void userDeleted(UserEntity user);
+}
@@ -1,6 +1,8 @@
 package com.upgrad.quora.service.business;
 
-import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.cache.TokenRevocationSet;
+import com.upgrad.quora.service.cache.UserAuthTokenCache;
+import com.upgrad.quora.service.dao.UserAuthDao;
 import com.upgrad.quora.service.entity.UserAuthTokenEntity;
 import com.upgrad.quora.service.exception.SignOutRestrictedException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,13 +20,23 @@ public class SignoutService {
     //  signout method accepts the decoded JWT token and return auth token entity similar to how authentication service.autheticate  returns user authtoken entity
 
     @Autowired
-    private UserDao userDao;
+    private UserAuthDao userAuthDao;
+
+    @Autowired
+    private JwtTokenVerifier jwtTokenVerifier;
+
+    @Autowired
+    private UserAuthTokenCache userAuthTokenCache;
+
+    @Autowired
+    private TokenRevocationSet tokenRevocationSet;
 
     @Transactional(propagation = Propagation.REQUIRED)
     public UserAuthTokenEntity signout(final String authToken) throws SignOutRestrictedException {
 
-        //calls User DAO to get user auth token entity for the given user auth token if it exists
-        UserAuthTokenEntity userAuthTokenEntity = userDao.getUserAuthToken(authToken);
+        //calls User Auth DAO to get the managed user auth token entity for the given user auth token if it exists.
+        //the session cache is bypassed here because the entity is modified
+        UserAuthTokenEntity userAuthTokenEntity = userAuthDao.getUserAuthByToken(authToken, jwtTokenVerifier.getIssuedAt(authToken));
         if (userAuthTokenEntity == null) {
             throw new SignOutRestrictedException("SGR-001", "User is not Signed in");
 
@@ -34,6 +46,8 @@ public class SignoutService {
             final ZonedDateTime now = ZonedDateTime.now();
 
             userAuthTokenEntity.setLogoutAt(now);
+            userAuthTokenCache.invalidate(authToken);
+            tokenRevocationSet.revoke(authToken, userAuthTokenEntity.getExpiresAt(), now);
             return userAuthTokenEntity;
         }
     }
@@ -0,0 +1,123 @@
+package com.upgrad.quora.service.business;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the daily partitions of the user_auth table, which is range partitioned by LOGIN_AT.
+ * Every quora.user-auth-partitions.interval-ms the partitions of today and the next quora.user-auth-partitions.days-ahead
+ * days are created, and the partitions of past days are dropped once none of their user auths expired less than
+ * quora.user-auth-reaper.expired-retention-hours ago, so that old sessions go with one DROP TABLE instead of the
+ * row by row deletes of the UserAuthReaper, which still reaps the user auths of the partitions that are kept.
+ * Each partition is created or dropped in its own transaction, which waits at most
+ * quora.user-auth-partitions.lock-timeout-ms for its locks; a partition that fails is retried by the next run.
+ */
+@Component
+public class UserAuthPartitionManager {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserAuthPartitionManager.class);
+
+    @Autowired
+    private UserAuthPartitionService userAuthPartitionService;
+
+    @Value("${quora.user-auth-partitions.days-ahead:7}")
+    private int daysAhead;
+
+    @Value("${quora.user-auth-reaper.expired-retention-hours:24}")
+    private long expiredRetentionHours;
+
+    private final AtomicLong createdCount = new AtomicLong();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final AtomicLong skippedCount = new AtomicLong();
+
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private volatile long lastRunMillis;
+
+    /**
+     * Creates the missing partitions ahead of time and drops the partitions whose user auths can all be reaped.
+     */
+    @Scheduled(initialDelayString = "${quora.user-auth-partitions.initial-delay-ms:0}", fixedDelayString = "${quora.user-auth-partitions.interval-ms:3600000}")
+    public void managePartitions() {
+        long start = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        ZonedDateTime expiresFrom = ZonedDateTime.now().minusHours(expiredRetentionHours);
+
+        Set<LocalDate> partitionDays;
+        try {
+            partitionDays = new HashSet<LocalDate>(userAuthPartitionService.getPartitionDays());
+        } catch (DataAccessException e) {
+            failedCount.incrementAndGet();
+            LOGGER.warn("Could not list the user auth partitions", e);
+            return;
+        }
+
+        for (LocalDate day = today; !day.isAfter(today.plusDays(daysAhead)); day = day.plusDays(1)) {
+            if (partitionDays.contains(day)) {
+                continue;
+            }
+            try {
+                if (userAuthPartitionService.createPartition(day)) {
+                    createdCount.incrementAndGet();
+                } else {
+                    skippedCount.incrementAndGet();
+                }
+            } catch (DataAccessException e) {
+                failedCount.incrementAndGet();
+                LOGGER.warn("Could not create the user auth partition of {}", day, e);
+            }
+        }
+
+        for (LocalDate day : partitionDays) {
+            if (!day.isBefore(today)) {
+                continue;
+            }
+            try {
+                if (userAuthPartitionService.dropPartitionIfReapable(day, expiresFrom)) {
+                    droppedCount.incrementAndGet();
+                }
+            } catch (DataAccessException e) {
+                failedCount.incrementAndGet();
+                LOGGER.warn("Could not drop the user auth partition of {}", day, e);
+            }
+        }
+
+        lastRunMillis = (System.nanoTime() - start) / 1000000;
+    }
+
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * @return number of partitions not created because their day already had user auths in the default partition
+     */
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getLastRunMillis() {
+        return lastRunMillis;
+    }
+}
@@ -0,0 +1,61 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.dao.UserAuthPartitionDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+@Service
+public class UserAuthPartitionService {
+
+    @Autowired
+    private UserAuthPartitionDao userAuthPartitionDao;
+
+    @Value("${quora.user-auth-partitions.lock-timeout-ms:2000}")
+    private long lockTimeoutMillis;
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public List<LocalDate> getPartitionDays() {
+        return userAuthPartitionDao.getPartitionDays();
+    }
+
+    /**
+     * Creates the partition of the day in its own transaction. A day whose user auths already went to the default
+     * partition is left there, as Postgres cannot create a partition over rows of the default partition.
+     *
+     * @param day day of the partition
+     * @return true if the partition was created
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean createPartition(final LocalDate day) {
+        userAuthPartitionDao.setLockTimeout(lockTimeoutMillis);
+        if (userAuthPartitionDao.hasDefaultPartitionUserAuths(day)) {
+            return false;
+        }
+        userAuthPartitionDao.createPartition(day);
+        return true;
+    }
+
+    /**
+     * Drops the partition of a past day in its own transaction, unless it still holds user auths that cannot be reaped.
+     *
+     * @param day         day of the partition
+     * @param expiresFrom user auths expiring at or after this time are still needed
+     * @return true if the partition was dropped
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean dropPartitionIfReapable(final LocalDate day, final ZonedDateTime expiresFrom) {
+        userAuthPartitionDao.setLockTimeout(lockTimeoutMillis);
+        if (userAuthPartitionDao.hasUserAuthsExpiringFrom(day, expiresFrom)) {
+            return false;
+        }
+        userAuthPartitionDao.dropPartition(day);
+        return true;
+    }
+}
@@ -0,0 +1,118 @@
+package com.upgrad.quora.service.business;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.ZonedDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Purges user_auth rows that are no longer needed, as every sign-in adds one and nothing else removes them.
+ * Every quora.user-auth-reaper.interval-ms, user auths expired more than quora.user-auth-reaper.expired-retention-hours
+ * ago are deleted, as are expired user auths signed out more than quora.user-auth-reaper.logged-out-retention-hours ago.
+ * Rows are deleted in chunks of quora.user-auth-reaper.chunk-size, each in its own transaction, with a pause of
+ * quora.user-auth-reaper.chunk-pause-ms in between, so the reaper never holds many row locks or competes with sign-ins
+ * for long. A run stops after quora.user-auth-reaper.max-chunks-per-run chunks and the next run continues.
+ */
+@Component
+public class UserAuthReaper {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserAuthReaper.class);
+
+    @Autowired
+    private UserAuthReaperService userAuthReaperService;
+
+    @Value("${quora.user-auth-reaper.expired-retention-hours:24}")
+    private long expiredRetentionHours;
+
+    @Value("${quora.user-auth-reaper.logged-out-retention-hours:1}")
+    private long loggedOutRetentionHours;
+
+    @Value("${quora.user-auth-reaper.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${quora.user-auth-reaper.chunk-pause-ms:50}")
+    private long chunkPauseMillis;
+
+    @Value("${quora.user-auth-reaper.max-chunks-per-run:1000}")
+    private int maxChunksPerRun;
+
+    private final AtomicLong runCount = new AtomicLong();
+
+    private final AtomicLong reapedCount = new AtomicLong();
+
+    private final AtomicLong failedRunCount = new AtomicLong();
+
+    private volatile long lastRunReapedCount;
+
+    private volatile long lastRunMillis;
+
+    private final AtomicLong maxRunMillis = new AtomicLong();
+
+    /**
+     * Deletes reapable user auths chunk by chunk until none are left or the run reaches its chunk limit.
+     *
+     * @return number of user auths deleted by this run
+     */
+    @Scheduled(initialDelayString = "${quora.user-auth-reaper.initial-delay-ms:60000}", fixedDelayString = "${quora.user-auth-reaper.interval-ms:600000}")
+    public long reap() {
+        long start = System.nanoTime();
+        ZonedDateTime now = ZonedDateTime.now();
+        ZonedDateTime expiredBefore = now.minusHours(expiredRetentionHours);
+        ZonedDateTime loggedOutBefore = now.minusHours(loggedOutRetentionHours);
+
+        long reaped = 0;
+        try {
+            for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+                int deleted = userAuthReaperService.reapChunk(expiredBefore, loggedOutBefore, now, chunkSize);
+                reaped += deleted;
+                reapedCount.addAndGet(deleted);
+                if (deleted < chunkSize) {
+                    break;
+                }
+                Thread.sleep(chunkPauseMillis);
+            }
+        } catch (DataAccessException e) {
+            failedRunCount.incrementAndGet();
+            LOGGER.warn("User auth reaper stopped after {} rows", reaped, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        long millis = (System.nanoTime() - start) / 1000000;
+        runCount.incrementAndGet();
+        lastRunReapedCount = reaped;
+        lastRunMillis = millis;
+        maxRunMillis.accumulateAndGet(millis, Math::max);
+        return reaped;
+    }
+
+    public long getRunCount() {
+        return runCount.get();
+    }
+
+    public long getReapedCount() {
+        return reapedCount.get();
+    }
+
+    public long getFailedRunCount() {
+        return failedRunCount.get();
+    }
+
+    public long getLastRunReapedCount() {
+        return lastRunReapedCount;
+    }
+
+    public long getLastRunMillis() {
+        return lastRunMillis;
+    }
+
+    public long getMaxRunMillis() {
+        return maxRunMillis.get();
+    }
+}
@@ -0,0 +1,35 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.dao.UserAuthDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+@Service
+public class UserAuthReaperService {
+
+    @Autowired
+    private UserAuthDao userAuthDao;
+
+    /**
+     * Deletes one chunk of reapable user auths in its own short transaction, so that no lock is held for long.
+     *
+     * @param expiredBefore   user auths expired before this time are deleted
+     * @param loggedOutBefore expired user auths signed out before this time are deleted
+     * @param now             current time
+     * @param chunkSize       maximum number of user auths deleted
+     * @return number of deleted user auths, less than chunkSize once nothing is left to reap
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int reapChunk(final ZonedDateTime expiredBefore, final ZonedDateTime loggedOutBefore, final ZonedDateTime now, final int chunkSize) {
+        List<Integer> ids = userAuthDao.getReapableUserAuthIds(expiredBefore, loggedOutBefore, now, chunkSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return userAuthDao.deleteUserAuths(ids);
+    }
+}
@@ -0,0 +1,111 @@
+package com.upgrad.quora.service.business;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.upgrad.quora.service.cache.TokenRevocationSet;
+import com.upgrad.quora.service.cache.UserAuthTokenCache;
+import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.entity.UserAuthTokenEntity;
+import com.upgrad.quora.service.entity.UserEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Resolves access tokens to user auth details for the authorization checks of all services.
+ * Resolved sessions are kept in the UserAuthTokenCache. On a cache miss the token is resolved according to
+ * quora.auth.token-verification:
+ * "database" (default) - the token is looked up in the user_auth table.
+ * "stateless" - signature, issuer and expiry are verified locally against the JwtKeyRing, the user id and role are
+ * taken from the claims of the token and the logout time of the token from the in-process TokenRevocationSet, so a
+ * valid token is resolved without a query. Deleting a user or changing its role revokes the tokens issued to the user
+ * before in the TokenRevocationSet. Tokens issued without the user claims are resolved by reading their user.
+ */
+@Service
+public class UserAuthTokenService {
+
+    public static final String DATABASE_VERIFICATION = "database";
+
+    public static final String STATELESS_VERIFICATION = "stateless";
+
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private TokenRevocationSet tokenRevocationSet;
+
+    @Autowired
+    private UserAuthTokenCache userAuthTokenCache;
+
+    @Autowired
+    private JwtTokenVerifier jwtTokenVerifier;
+
+    @Value("${quora.auth.token-verification:" + DATABASE_VERIFICATION + "}")
+    private String tokenVerification;
+
+    /**
+     * method used for getting the user auth details of an access token.
+     * The returned entity may be a detached snapshot and must not be modified,
+     * use UserAuthDao.getUserAuthByToken when the user auth has to be updated.
+     *
+     * @param accessToken access token of the user
+     * @return UserAuthToken Entity object, or null if the token is unknown or does not verify
+     */
+    public UserAuthTokenEntity getUserAuthToken(final String accessToken) {
+        if (accessToken == null) {
+            return null;
+        }
+        UserAuthTokenEntity cachedUserAuthToken = userAuthTokenCache.get(accessToken);
+        if (cachedUserAuthToken != null) {
+            return cachedUserAuthToken;
+        }
+
+        UserAuthTokenEntity userAuthTokenEntity = STATELESS_VERIFICATION.equals(tokenVerification)
+                ? verifyStateless(accessToken)
+                : userDao.getUserAuthToken(accessToken, jwtTokenVerifier.getIssuedAt(accessToken));
+        if (userAuthTokenEntity != null) {
+            userAuthTokenCache.put(userAuthTokenEntity);
+        }
+        return userAuthTokenEntity;
+    }
+
+    private UserAuthTokenEntity verifyStateless(final String accessToken) {
+        DecodedJWT decodedToken = jwtTokenVerifier.verify(accessToken);
+        if (decodedToken == null) {
+            return null;
+        }
+
+        UserEntity userEntity = getUser(decodedToken);
+        if (userEntity == null) {
+            return null;
+        }
+
+        UserAuthTokenEntity userAuthTokenEntity = new UserAuthTokenEntity();
+        userAuthTokenEntity.setUuid(userEntity.getUuid());
+        userAuthTokenEntity.setUser(userEntity);
+        userAuthTokenEntity.setAccessToken(accessToken);
+        ZonedDateTime issuedAt = ZonedDateTime.ofInstant(decodedToken.getIssuedAt().toInstant(), ZoneId.systemDefault());
+        userAuthTokenEntity.setLoginAt(issuedAt);
+        userAuthTokenEntity.setExpiresAt(ZonedDateTime.ofInstant(decodedToken.getExpiresAt().toInstant(), ZoneId.systemDefault()));
+        ZonedDateTime logoutAt = tokenRevocationSet.getLogoutAt(decodedToken.getId());
+        userAuthTokenEntity.setLogoutAt(logoutAt != null ? logoutAt : tokenRevocationSet.getUserLogoutAt(userEntity.getUuid(), issuedAt));
+        return userAuthTokenEntity;
+    }
+
+    //the user is built from the claims of the token, only tokens issued without them read the user
+    private UserEntity getUser(final DecodedJWT decodedToken) {
+        String userUuid = decodedToken.getAudience().get(0);
+        Integer userId = decodedToken.getClaim(JwtTokenProvider.USER_ID_CLAIM).asInt();
+        String role = decodedToken.getClaim(JwtTokenProvider.ROLE_CLAIM).asString();
+        if (userId == null || role == null) {
+            return userDao.getUserByUserid(userUuid);
+        }
+        UserEntity userEntity = new UserEntity();
+        userEntity.setId(userId);
+        userEntity.setUuid(userUuid);
+        userEntity.setRole(role);
+        return userEntity;
+    }
+}
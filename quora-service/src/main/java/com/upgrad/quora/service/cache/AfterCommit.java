@@ -0,0 +1,37 @@
+package com.upgrad.quora.service.cache;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers cache updates to the commit of the current transaction, so that caches never see uncommitted
+ * or rolled back rows.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * @return true if the action will run after the current transaction commits, false if no transaction is active
+     */
+    public static boolean isDeferred() {
+        return TransactionSynchronizationManager.isSynchronizationActive();
+    }
+
+    /**
+     * Runs the action after the current transaction commits. Does nothing if no transaction is active.
+     *
+     * @param action action to run
+     */
+    public static void run(final Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.upgrad.quora.service.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed size bloom filter over strings. Bits are set with compare-and-set so that the filter can be read
+ * and written concurrently without locking. A negative answer is exact, a positive answer has to be confirmed.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+
+    private final long bitCount;
+
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions     number of elements the filter is sized for
+     * @param falsePositiveProbability wanted false positive probability at the expected number of elements
+     */
+    public BloomFilter(final long expectedInsertions, final double falsePositiveProbability) {
+        long insertions = Math.max(1, expectedInsertions);
+        long bits = (long) Math.ceil(-insertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.max(1, (bits + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = wordCount * 64L;
+        this.hashCount = (int) Math.max(1, Math.round((double) bitCount / insertions * Math.log(2)));
+    }
+
+    /**
+     * @param value element to add
+     */
+    public void add(final String value) {
+        long hash = hash64(value);
+        int firstHash = (int) hash;
+        int secondHash = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = bitIndex(firstHash + i * secondHash);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!words.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * @param value element to test
+     * @return false if the element was definitely never added, true if it might have been
+     */
+    public boolean mightContain(final String value) {
+        long hash = hash64(value);
+        int firstHash = (int) hash;
+        int secondHash = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = bitIndex(firstHash + i * secondHash);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long bitIndex(final int combinedHash) {
+        return (combinedHash & Integer.MAX_VALUE) % bitCount;
+    }
+
+    /**
+     * 64 bit FNV-1a hash of the UTF-8 bytes of the value.
+     */
+    private static long hash64(final String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
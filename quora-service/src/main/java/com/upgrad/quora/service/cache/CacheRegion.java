@@ -0,0 +1,140 @@
+package com.upgrad.quora.service.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Named read-through cache in front of one kind of lookup. A miss is loaded through the given loader and a snapshot
+ * of the loaded value is stored once the loading transaction commits, so uncommitted rows are never cached.
+ * A snapshot is not stored if the region was invalidated while the value was loaded, so a concurrent edit cannot be
+ * overwritten by the value read before it. Invalidations are applied immediately and again after commit.
+ * Absent values are not cached.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class CacheRegion<K, V> {
+
+    private final String name;
+
+    private final CacheStore<K, V> store;
+
+    private final long ttlMillis;
+
+    private final UnaryOperator<V> snapshot;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong loads = new AtomicLong();
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * @param name       name of the region, used in metrics
+     * @param store      store holding the entries
+     * @param ttlSeconds time an entry is kept after it was stored
+     * @param snapshot   copies a loaded value into the instance that is stored and shared by all readers
+     */
+    public CacheRegion(final String name, final CacheStore<K, V> store, final long ttlSeconds, final UnaryOperator<V> snapshot) {
+        this.name = name;
+        this.store = store;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Returns the cached value for the key, loading it on a miss.
+     *
+     * @param key    cache key
+     * @param loader loads the value on a miss, may return null
+     * @return the cached snapshot on a hit, otherwise the value returned by the loader
+     */
+    public V get(final K key, final Function<K, V> loader) {
+        V cached = store.get(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+
+        long invalidationsBeforeLoad = invalidations.get();
+        V loaded = loader.apply(key);
+        if (loaded != null) {
+            loads.incrementAndGet();
+            V copy = snapshot.apply(loaded);
+            if (AfterCommit.isDeferred()) {
+                AfterCommit.run(() -> put(key, copy, invalidationsBeforeLoad));
+            } else {
+                put(key, copy, invalidationsBeforeLoad);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Removes the entry for the key, now and after the current transaction commits.
+     *
+     * @param key cache key
+     */
+    public void invalidate(final K key) {
+        invalidations.incrementAndGet();
+        store.invalidate(key);
+        AfterCommit.run(() -> {
+            invalidations.incrementAndGet();
+            store.invalidate(key);
+        });
+    }
+
+    /**
+     * Removes every entry, now and after the current transaction commits.
+     */
+    public void clear() {
+        invalidations.incrementAndGet();
+        store.clear();
+        AfterCommit.run(() -> {
+            invalidations.incrementAndGet();
+            store.clear();
+        });
+    }
+
+    private void put(final K key, final V value, final long invalidationsBeforeLoad) {
+        if (invalidations.get() == invalidationsBeforeLoad) {
+            store.put(key, value, System.currentTimeMillis() + ttlMillis);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSize() {
+        return store.size();
+    }
+
+    public int getMaxSize() {
+        return store.getMaxSize();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getLoadCount() {
+        return loads.get();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.get();
+    }
+
+    public long getEvictionCount() {
+        return store.getEvictionCount();
+    }
+}
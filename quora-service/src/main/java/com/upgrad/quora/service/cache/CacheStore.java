@@ -0,0 +1,37 @@
+package com.upgrad.quora.service.cache;
+
+/**
+ * Storage behind a CacheRegion. The default store is the in-process LruTtlCache, another tier can be plugged in
+ * by declaring a CacheStoreFactory bean.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public interface CacheStore<K, V> {
+
+    /**
+     * @param key cache key
+     * @return stored value, or null if it is absent or has expired
+     */
+    V get(K key);
+
+    /**
+     * @param key             cache key
+     * @param value           value to store
+     * @param expiresAtMillis absolute expiry time in epoch millis
+     */
+    void put(K key, V value, long expiresAtMillis);
+
+    /**
+     * @param key cache key
+     */
+    void invalidate(K key);
+
+    void clear();
+
+    int size();
+
+    int getMaxSize();
+
+    long getEvictionCount();
+}
@@ -0,0 +1,14 @@
+package com.upgrad.quora.service.cache;
+
+/**
+ * Creates the stores of the entity cache regions. Without a bean of this type the regions are kept in LruTtlCache.
+ */
+public interface CacheStoreFactory {
+
+    /**
+     * @param regionName name of the region the store is created for
+     * @param maxSize    configured maximum number of entries of the region
+     * @return new, empty store
+     */
+    <K, V> CacheStore<K, V> create(String regionName, int maxSize);
+}
@@ -0,0 +1,102 @@
+package com.upgrad.quora.service.cache;
+
+import com.upgrad.quora.service.entity.AnswerEntity;
+import com.upgrad.quora.service.entity.QuestionEntity;
+import com.upgrad.quora.service.entity.UserEntity;
+import org.apache.commons.lang3.SerializationUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-through caches of the uuid lookups of users, questions and answers, one region per entity.
+ * Cached entities are detached copies taken when the entity was loaded, shared by all readers, so they must only
+ * be read, never modified; code that modifies or removes an entity loads it uncached.
+ * The DAOs invalidate an entry when they edit or delete its entity. Deletes that cascade in the database to other
+ * tables read the uuids of the cascaded rows before the delete and invalidate those entries, and every entry expires after the ttl-seconds of its region,
+ * which bounds how long edits made by other application instances go unnoticed.
+ */
+@Component
+public class EntityCache {
+
+    @Autowired(required = false)
+    private CacheStoreFactory cacheStoreFactory;
+
+    @Value("${quora.entity-cache.users.max-size:10000}")
+    private int usersMaxSize;
+
+    @Value("${quora.entity-cache.users.ttl-seconds:60}")
+    private long usersTtlSeconds;
+
+    @Value("${quora.entity-cache.questions.max-size:10000}")
+    private int questionsMaxSize;
+
+    @Value("${quora.entity-cache.questions.ttl-seconds:60}")
+    private long questionsTtlSeconds;
+
+    @Value("${quora.entity-cache.answers.max-size:10000}")
+    private int answersMaxSize;
+
+    @Value("${quora.entity-cache.answers.ttl-seconds:60}")
+    private long answersTtlSeconds;
+
+    private CacheRegion<String, UserEntity> users;
+
+    private CacheRegion<String, QuestionEntity> questions;
+
+    private CacheRegion<String, AnswerEntity> answers;
+
+    @PostConstruct
+    public void init() {
+        users = createRegion("users", usersMaxSize, usersTtlSeconds);
+        questions = createRegion("questions", questionsMaxSize, questionsTtlSeconds);
+        answers = createRegion("answers", answersMaxSize, answersTtlSeconds);
+    }
+
+    /**
+     * @return users by uuid
+     */
+    public CacheRegion<String, UserEntity> getUsers() {
+        return users;
+    }
+
+    /**
+     * @return questions, with their user, by uuid
+     */
+    public CacheRegion<String, QuestionEntity> getQuestions() {
+        return questions;
+    }
+
+    /**
+     * @return answers, with their user, by uuid
+     */
+    public CacheRegion<String, AnswerEntity> getAnswers() {
+        return answers;
+    }
+
+    public List<CacheRegion<String, ?>> getRegions() {
+        return Arrays.<CacheRegion<String, ?>>asList(users, questions, answers);
+    }
+
+    /**
+     * Removes every entry of every region.
+     */
+    public void clear() {
+        users.clear();
+        questions.clear();
+        answers.clear();
+    }
+
+    private <V extends Serializable> CacheRegion<String, V> createRegion(final String name, final int maxSize, final long ttlSeconds) {
+        CacheStore<String, V> store = cacheStoreFactory == null
+                ? new LruTtlCache<String, V>(maxSize)
+                : cacheStoreFactory.<String, V>create(name, maxSize);
+        //a serialized copy holds no reference to the persistence context the entity was loaded in
+        return new CacheRegion<String, V>(name, store, ttlSeconds, SerializationUtils::clone);
+    }
+}
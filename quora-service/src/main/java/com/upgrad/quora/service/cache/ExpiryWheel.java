@@ -0,0 +1,99 @@
+package com.upgrad.quora.service.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel indexing keys by their expiry time, so that expired keys can be found without scanning or
+ * comparing every entry. A key is put in the bucket of the tick its expiry falls into; advancing the wheel visits
+ * only the buckets of the ticks that have passed and returns the keys in them that have expired. Keys expiring more
+ * than one rotation ahead share a bucket with earlier ones and are kept until a later rotation reaches their expiry.
+ * A key is returned at most one tick after its expiry. Scheduling a key again does not remove it from its earlier
+ * bucket, so the caller has to check that a returned key has not been extended in the meantime.
+ *
+ * @param <K> key type
+ */
+public class ExpiryWheel<K> {
+
+    private final long tickMillis;
+
+    private final List<Map<K, Long>> buckets;
+
+    private long currentTick;
+
+    private int size;
+
+    /**
+     * @param wheelSize  number of buckets, one per tick
+     * @param tickMillis length of a tick in millis
+     * @param nowMillis  current time in epoch millis
+     */
+    public ExpiryWheel(final int wheelSize, final long tickMillis, final long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.buckets = new ArrayList<Map<K, Long>>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new HashMap<K, Long>());
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * @param key             key to index
+     * @param expiresAtMillis absolute expiry time of the key in epoch millis
+     */
+    public synchronized void schedule(final K key, final long expiresAtMillis) {
+        long expiryTick = Math.max((expiresAtMillis + tickMillis - 1) / tickMillis, currentTick + 1);
+        if (bucket(expiryTick).put(key, expiresAtMillis) == null) {
+            size++;
+        }
+    }
+
+    /**
+     * Moves the wheel on to the given time and removes the keys that have expired by then.
+     *
+     * @param nowMillis current time in epoch millis
+     * @return keys that have expired since the last advance
+     */
+    public synchronized List<K> advance(final long nowMillis) {
+        List<K> expired = new ArrayList<K>();
+        long nowTick = nowMillis / tickMillis;
+        //after a pause of more than one rotation every bucket is visited once
+        for (long tick = Math.max(currentTick + 1, nowTick - buckets.size() + 1); tick <= nowTick; tick++) {
+            Iterator<Map.Entry<K, Long>> iterator = bucket(tick).entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<K, Long> entry = iterator.next();
+                if (entry.getValue() <= nowMillis) {
+                    expired.add(entry.getKey());
+                    iterator.remove();
+                    size--;
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, nowTick);
+        return expired;
+    }
+
+    /**
+     * Removes every key.
+     */
+    public synchronized void clear() {
+        for (Map<K, Long> bucket : buckets) {
+            bucket.clear();
+        }
+        size = 0;
+    }
+
+    /**
+     * @return number of indexed keys, counting a key scheduled into several buckets once per bucket
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private Map<K, Long> bucket(final long tick) {
+        return buckets.get((int) (tick % buckets.size()));
+    }
+}
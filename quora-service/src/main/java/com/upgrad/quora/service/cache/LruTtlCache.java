@@ -0,0 +1,171 @@
+package com.upgrad.quora.service.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Bounded in-memory cache with least-recently-used eviction and a per-entry expiry time.
+ * Every entry carries its own absolute expiry (epoch millis) so callers can tie it to the lifetime of the cached value.
+ * Hit, miss and eviction counters are kept so that the cache can be sized from real traffic.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class LruTtlCache<K, V> implements CacheStore<K, V> {
+
+    private final int maxSize;
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxSize maximum number of entries kept before the least recently used one is evicted
+     */
+    public LruTtlCache(final int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruTtlCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value for the key, or null if it is absent or has expired.
+     *
+     * @param key cache key
+     * @return cached value or null
+     */
+    @Override
+    public synchronized V get(final K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (entry.expiresAtMillis <= System.currentTimeMillis()) {
+            entries.remove(key);
+            evictions.incrementAndGet();
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * Stores the value until the given expiry time. Values that are already expired are not stored.
+     *
+     * @param key             cache key
+     * @param value           value to cache
+     * @param expiresAtMillis absolute expiry time in epoch millis
+     */
+    @Override
+    public synchronized void put(final K key, final V value, final long expiresAtMillis) {
+        if (maxSize <= 0 || expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        entries.put(key, new Entry<V>(value, expiresAtMillis));
+    }
+
+    /**
+     * Removes the entry for the key if present.
+     *
+     * @param key cache key
+     */
+    @Override
+    public synchronized void invalidate(final K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes the entry for the key if it has expired by the given time. An entry stored again with a later expiry is kept.
+     *
+     * @param key       cache key
+     * @param nowMillis current time in epoch millis
+     * @return true if an expired entry was removed
+     */
+    public synchronized boolean invalidateExpired(final K key, final long nowMillis) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null || entry.expiresAtMillis > nowMillis) {
+            return false;
+        }
+        entries.remove(key);
+        evictions.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Removes every entry whose value matches the predicate.
+     *
+     * @param predicate condition on the cached value
+     * @return number of removed entries
+     */
+    public synchronized int invalidateIf(final Predicate<V> predicate) {
+        int removed = 0;
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (predicate.test(iterator.next().value)) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    private static final class Entry<V> {
+
+        private final V value;
+
+        private final long expiresAtMillis;
+
+        private Entry(final V value, final long expiresAtMillis) {
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.upgrad.quora.service.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded list of the newest entries by time, newest first, backed by a skip list so that the newest entries are read
+ * in order without sorting or locking. Entries with equal times are ordered by id, highest first. Once the list holds
+ * capacity entries, adding an entry drops the oldest one; an entry older than all entries of a full list is not added.
+ * Writers are serialized, readers see a weakly consistent view of the list.
+ *
+ * @param <T> type of the entry values
+ */
+public class RecencyList<T> {
+
+    private static final Comparator<Key> NEWEST_FIRST = Comparator.comparingLong((Key key) -> key.timeMillis).reversed()
+            .thenComparing(Comparator.comparingInt((Key key) -> key.id).reversed());
+
+    private final int capacity;
+
+    //replaced as a whole by replaceAll, so readers never see it half filled
+    private volatile ConcurrentNavigableMap<Key, T> entries = new ConcurrentSkipListMap<Key, T>(NEWEST_FIRST);
+
+    //id -> key of the entry in entries, only accessed by writers; also counts the entries, as the size of a skip list is not kept
+    private Map<Integer, Key> keys = new HashMap<Integer, Key>();
+
+    private volatile int size;
+
+    public RecencyList(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Adds the entry, replacing an entry with the same id.
+     *
+     * @param id         id of the entry
+     * @param timeMillis time of the entry, in milliseconds since the epoch
+     * @param value      value of the entry
+     * @return true if the list dropped its oldest entry, or did not add this one, to stay within its capacity
+     */
+    public synchronized boolean put(final Integer id, final long timeMillis, final T value) {
+        removeLocked(id);
+        boolean dropped = putLocked(entries, keys, id, timeMillis, value);
+        size = keys.size();
+        return dropped;
+    }
+
+    /**
+     * Replaces the value of the entry with the given id, if the list holds it, keeping its position.
+     *
+     * @param id     id of the entry
+     * @param update function of the current value returning the new value
+     */
+    public synchronized void update(final Integer id, final UnaryOperator<T> update) {
+        Key key = keys.get(id);
+        if (key != null) {
+            entries.put(key, update.apply(entries.get(key)));
+        }
+    }
+
+    /**
+     * Removes the entry with the given id, if the list holds it.
+     *
+     * @param id id of the entry
+     */
+    public synchronized void remove(final Integer id) {
+        removeLocked(id);
+        size = keys.size();
+    }
+
+    /**
+     * Replaces all entries of the list at once.
+     *
+     * @param values       new values, in any order
+     * @param idOf         id of a value
+     * @param timeMillisOf time of a value, in milliseconds since the epoch
+     */
+    public synchronized void replaceAll(final List<T> values, final Function<T, Integer> idOf, final ToLongFunction<T> timeMillisOf) {
+        ConcurrentNavigableMap<Key, T> newEntries = new ConcurrentSkipListMap<Key, T>(NEWEST_FIRST);
+        Map<Integer, Key> newKeys = new HashMap<Integer, Key>();
+        for (T value : values) {
+            putLocked(newEntries, newKeys, idOf.apply(value), timeMillisOf.applyAsLong(value), value);
+        }
+        keys = newKeys;
+        entries = newEntries;
+        size = keys.size();
+    }
+
+    /**
+     * @param limit maximum number of entries
+     * @return the newest entries, newest first
+     */
+    public List<T> newest(final int limit) {
+        List<T> newest = new ArrayList<T>(Math.min(limit, capacity));
+        Iterator<T> values = entries.values().iterator();
+        while (newest.size() < limit && values.hasNext()) {
+            newest.add(values.next());
+        }
+        return newest;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private boolean putLocked(final ConcurrentNavigableMap<Key, T> entries, final Map<Integer, Key> keys, final Integer id, final long timeMillis, final T value) {
+        Key key = new Key(timeMillis, id);
+        entries.put(key, value);
+        keys.put(id, key);
+        if (keys.size() <= capacity) {
+            return false;
+        }
+        Map.Entry<Key, T> oldest = entries.pollLastEntry();
+        keys.remove(oldest.getKey().id);
+        return true;
+    }
+
+    private void removeLocked(final Integer id) {
+        Key key = keys.remove(id);
+        if (key != null) {
+            entries.remove(key);
+        }
+    }
+
+    private static final class Key {
+
+        private final long timeMillis;
+
+        private final int id;
+
+        private Key(final long timeMillis, final int id) {
+            this.timeMillis = timeMillis;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.upgrad.quora.service.cache;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.upgrad.quora.service.dao.UserAuthDao;
+import com.upgrad.quora.service.entity.UserRevocationEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process set of signed out access tokens that have not expired yet, keyed by the token id ("jti" claim).
+ * A bloom filter answers the common "not revoked" case with a few memory reads, an exact map confirms positives.
+ * The set is fed directly by sign-out and is synced incrementally from the LOGOUT_AT column of
+ * user_auth, so sign-outs handled by other instances are picked up within quora.revocation.sync-interval-ms.
+ * Next to single tokens the set holds revoked users, whose tokens issued up to the revocation time are all rejected:
+ * a user that is deleted or whose role changes is revoked, as stateless verification takes the user and its role from
+ * the token. User revocations are written to USER_REVOCATION and synced from there in the same way.
+ * Entries are pruned once their token has expired, at which point the bloom filter is rebuilt.
+ * The set is only read by stateless verification, so with quora.auth.token-verification=database nothing is revoked
+ * and the sync does not query the database.
+ */
+@Component
+public class TokenRevocationSet {
+
+    private static final long SYNC_OVERLAP_MILLIS = 60 * 1000;
+
+    @Autowired
+    private UserAuthDao userAuthDao;
+
+    @Autowired
+    private UserAuthTokenCache userAuthTokenCache;
+
+    @Value("${quora.revocation.expected-tokens:100000}")
+    private long expectedTokens;
+
+    @Value("${quora.revocation.false-positive-probability:0.01}")
+    private double falsePositiveProbability;
+
+    @Value("${quora.auth.token-verification:database}")
+    private String tokenVerification;
+
+    private boolean enabled;
+
+    private final Map<String, RevokedToken> revokedTokens = new ConcurrentHashMap<>();
+
+    private final Map<String, RevokedUser> revokedUsers = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter bloomFilter;
+
+    private volatile ZonedDateTime lastSyncedLogoutAt = ZonedDateTime.ofInstant(Instant.EPOCH, ZoneId.systemDefault());
+
+    private volatile ZonedDateTime lastSyncedRevokedAt = ZonedDateTime.ofInstant(Instant.EPOCH, ZoneId.systemDefault());
+
+    @PostConstruct
+    public void init() {
+        bloomFilter = new BloomFilter(expectedTokens, falsePositiveProbability);
+        enabled = "stateless".equals(tokenVerification);
+    }
+
+    /**
+     * @param tokenId id of the token ("jti" claim)
+     * @return logout time of the token, or null if the token is not revoked
+     */
+    public ZonedDateTime getLogoutAt(final String tokenId) {
+        if (tokenId == null || !bloomFilter.mightContain(tokenId)) {
+            return null;
+        }
+        RevokedToken revokedToken = revokedTokens.get(tokenId);
+        if (revokedToken == null || revokedToken.expiresAtMillis <= System.currentTimeMillis()) {
+            return null;
+        }
+        return ZonedDateTime.ofInstant(Instant.ofEpochMilli(revokedToken.logoutAtMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * @param userUuid uuid of the user of the token
+     * @param issuedAt issue time of the token
+     * @return revocation time of the user, or null if the user was not revoked after the token was issued
+     */
+    public ZonedDateTime getUserLogoutAt(final String userUuid, final ZonedDateTime issuedAt) {
+        RevokedUser revokedUser = userUuid == null ? null : revokedUsers.get(userUuid);
+        if (revokedUser == null || revokedUser.expiresAtMillis <= System.currentTimeMillis()
+                || issuedAt.toInstant().toEpochMilli() > revokedUser.revokedAtMillis) {
+            return null;
+        }
+        return ZonedDateTime.ofInstant(Instant.ofEpochMilli(revokedUser.revokedAtMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * Revokes every access token of the user issued up to now, to be called in the transaction that deletes the user
+     * or changes its role. The revocation is written to USER_REVOCATION for the other instances.
+     *
+     * @param userUuid  uuid of the user
+     * @param expiresAt expiry time of the last token that can have been issued up to now
+     */
+    public void revokeUser(final String userUuid, final ZonedDateTime expiresAt) {
+        if (!enabled) {
+            return;
+        }
+        UserRevocationEntity userRevocation = new UserRevocationEntity();
+        userRevocation.setUserUuid(userUuid);
+        userRevocation.setRevokedAt(ZonedDateTime.now());
+        userRevocation.setExpiresAt(expiresAt);
+        userAuthDao.createUserRevocation(userRevocation);
+        addRevokedUser(userUuid, userRevocation.getRevokedAt(), expiresAt);
+        userAuthTokenCache.invalidateUser(userUuid);
+    }
+
+    /**
+     * Revokes an access token until it expires. Tokens that are not JWTs carry no id and are ignored.
+     *
+     * @param accessToken access token of the user
+     * @param expiresAt   expiry time of the access token
+     * @param logoutAt    time the token was signed out
+     */
+    public void revoke(final String accessToken, final ZonedDateTime expiresAt, final ZonedDateTime logoutAt) {
+        String tokenId = getTokenId(accessToken);
+        long expiresAtMillis = expiresAt.toInstant().toEpochMilli();
+        if (!enabled || tokenId == null || expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        revokedTokens.put(tokenId, new RevokedToken(expiresAtMillis, logoutAt.toInstant().toEpochMilli()));
+        bloomFilter.add(tokenId);
+    }
+
+    /**
+     * Picks up tokens signed out since the last sync, including sign-outs handled by other instances.
+     */
+    @Scheduled(initialDelayString = "${quora.revocation.sync-initial-delay-ms:0}", fixedDelayString = "${quora.revocation.sync-interval-ms:5000}")
+    public void sync() {
+        if (!enabled) {
+            return;
+        }
+        ZonedDateTime now = ZonedDateTime.now();
+        ZonedDateTime since = lastSyncedLogoutAt.minusNanos(SYNC_OVERLAP_MILLIS * 1000000);
+        ZonedDateTime latestLogoutAt = lastSyncedLogoutAt;
+
+        List<Object[]> revokedUserAuths = userAuthDao.getRevokedUserAuthsSince(since, now);
+        for (Object[] revokedUserAuth : revokedUserAuths) {
+            String accessToken = (String) revokedUserAuth[0];
+            ZonedDateTime logoutAt = (ZonedDateTime) revokedUserAuth[2];
+            revoke(accessToken, (ZonedDateTime) revokedUserAuth[1], logoutAt);
+            userAuthTokenCache.invalidate(accessToken);
+            if (logoutAt.isAfter(latestLogoutAt)) {
+                latestLogoutAt = logoutAt;
+            }
+        }
+        lastSyncedLogoutAt = latestLogoutAt;
+
+        ZonedDateTime revokedSince = lastSyncedRevokedAt.minusNanos(SYNC_OVERLAP_MILLIS * 1000000);
+        ZonedDateTime latestRevokedAt = lastSyncedRevokedAt;
+        for (Object[] userRevocation : userAuthDao.getUserRevocationsSince(revokedSince, now)) {
+            String userUuid = (String) userRevocation[0];
+            ZonedDateTime revokedAt = (ZonedDateTime) userRevocation[1];
+            addRevokedUser(userUuid, revokedAt, (ZonedDateTime) userRevocation[2]);
+            userAuthTokenCache.invalidateUser(userUuid);
+            if (revokedAt.isAfter(latestRevokedAt)) {
+                latestRevokedAt = revokedAt;
+            }
+        }
+        lastSyncedRevokedAt = latestRevokedAt;
+    }
+
+    private void addRevokedUser(final String userUuid, final ZonedDateTime revokedAt, final ZonedDateTime expiresAt) {
+        RevokedUser revokedUser = new RevokedUser(expiresAt.toInstant().toEpochMilli(), revokedAt.toInstant().toEpochMilli());
+        revokedUsers.merge(userUuid, revokedUser, (current, added) -> current.revokedAtMillis >= added.revokedAtMillis ? current : added);
+    }
+
+    /**
+     * Drops entries of expired tokens and rebuilds the bloom filter from the remaining ones.
+     */
+    @Scheduled(fixedDelayString = "${quora.revocation.prune-interval-ms:60000}")
+    public synchronized void prune() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(revokedToken -> revokedToken.expiresAtMillis <= now);
+        revokedUsers.values().removeIf(revokedUser -> revokedUser.expiresAtMillis <= now);
+
+        BloomFilter prunedFilter = new BloomFilter(Math.max(expectedTokens, revokedTokens.size() * 2L), falsePositiveProbability);
+        revokedTokens.keySet().forEach(prunedFilter::add);
+        bloomFilter = prunedFilter;
+        //tokens revoked while the new filter was built may only have been added to the old one
+        revokedTokens.keySet().forEach(prunedFilter::add);
+    }
+
+    public int getSize() {
+        return revokedTokens.size();
+    }
+
+    /**
+     * @param accessToken access token of the user
+     * @return the "jti" claim of the token, or null if the token is not a JWT or has no id
+     */
+    public static String getTokenId(final String accessToken) {
+        try {
+            return JWT.decode(accessToken).getId();
+        } catch (JWTDecodeException e) {
+            return null;
+        }
+    }
+
+    private static final class RevokedToken {
+
+        private final long expiresAtMillis;
+
+        private final long logoutAtMillis;
+
+        private RevokedToken(final long expiresAtMillis, final long logoutAtMillis) {
+            this.expiresAtMillis = expiresAtMillis;
+            this.logoutAtMillis = logoutAtMillis;
+        }
+    }
+
+    private static final class RevokedUser {
+
+        private final long expiresAtMillis;
+
+        private final long revokedAtMillis;
+
+        private RevokedUser(final long expiresAtMillis, final long revokedAtMillis) {
+            this.expiresAtMillis = expiresAtMillis;
+            this.revokedAtMillis = revokedAtMillis;
+        }
+    }
+}
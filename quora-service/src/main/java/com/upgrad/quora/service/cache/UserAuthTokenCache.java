@@ -0,0 +1,142 @@
+package com.upgrad.quora.service.cache;
+
+import com.upgrad.quora.service.entity.UserAuthTokenEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Session cache keyed by access token, sitting in front of the userAuthTokenByAccessToken lookup.
+ * An entry never outlives the token's expiresAt, and is additionally capped by a configurable ttl so that
+ * sign-outs performed by other application instances are picked up within that window.
+ * Every entry is indexed by its expiry in an ExpiryWheel that is advanced every quora.session-cache.expiry-tick-ms,
+ * so sessions are evicted within a tick of their expiry instead of lingering until they are looked up or pushed out.
+ * Cached entities are detached snapshots and must only be read, never modified.
+ */
+@Component
+public class UserAuthTokenCache {
+
+    @Value("${quora.session-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${quora.session-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${quora.session-cache.expiry-tick-ms:1000}")
+    private long expiryTickMillis;
+
+    @Value("${quora.session-cache.expiry-wheel-size:512}")
+    private int expiryWheelSize;
+
+    private LruTtlCache<String, UserAuthTokenEntity> cache;
+
+    private ExpiryWheel<String> expiryWheel;
+
+    private final AtomicLong expiredEvictions = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        cache = new LruTtlCache<String, UserAuthTokenEntity>(maxSize);
+        expiryWheel = new ExpiryWheel<String>(expiryWheelSize, expiryTickMillis, System.currentTimeMillis());
+    }
+
+    /**
+     * @param accessToken access token of the user
+     * @return cached user auth entity, or null if not cached or expired
+     */
+    public UserAuthTokenEntity get(final String accessToken) {
+        return cache.get(accessToken);
+    }
+
+    /**
+     * Caches the user auth entity until its expiry or the configured ttl, whichever comes first.
+     *
+     * @param userAuthTokenEntity user auth entity loaded from the database
+     */
+    public void put(final UserAuthTokenEntity userAuthTokenEntity) {
+        if (maxSize <= 0 || userAuthTokenEntity.getExpiresAt() == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long entryExpiresAtMillis = Math.min(userAuthTokenEntity.getExpiresAt().toInstant().toEpochMilli(), now + ttlSeconds * 1000);
+        if (entryExpiresAtMillis <= now) {
+            return;
+        }
+        cache.put(userAuthTokenEntity.getAccessToken(), userAuthTokenEntity, entryExpiresAtMillis);
+        expiryWheel.schedule(userAuthTokenEntity.getAccessToken(), entryExpiresAtMillis);
+    }
+
+    /**
+     * Evicts the sessions that have expired since the last tick.
+     */
+    @Scheduled(fixedRateString = "${quora.session-cache.expiry-tick-ms:1000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        for (String accessToken : expiryWheel.advance(now)) {
+            if (cache.invalidateExpired(accessToken, now)) {
+                expiredEvictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Removes the session for the access token. When called inside a transaction the entry is removed again
+     * after commit, so a concurrent read of the not yet committed row cannot re-populate it.
+     *
+     * @param accessToken access token of the user
+     */
+    public void invalidate(final String accessToken) {
+        cache.invalidate(accessToken);
+        AfterCommit.run(() -> cache.invalidate(accessToken));
+    }
+
+    /**
+     * Removes every session belonging to the user. Sessions are matched on the uuid of their user, which is loaded
+     * with every cached session, not on the uuid of the user auth row.
+     *
+     * @param userUuid uuid of the user
+     */
+    public void invalidateUser(final String userUuid) {
+        cache.invalidateIf(entity -> userUuid.equals(entity.getUser().getUuid()));
+        AfterCommit.run(() -> cache.invalidateIf(entity -> userUuid.equals(entity.getUser().getUuid())));
+    }
+
+    /**
+     * Removes every session.
+     */
+    public void clear() {
+        cache.clear();
+        expiryWheel.clear();
+    }
+
+    public int getSize() {
+        return cache.size();
+    }
+
+    public int getMaxSize() {
+        return cache.getMaxSize();
+    }
+
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    public long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    public long getEvictionCount() {
+        return cache.getEvictionCount();
+    }
+
+    public long getExpiredEvictionCount() {
+        return expiredEvictions.get();
+    }
+
+    public int getExpiryIndexSize() {
+        return expiryWheel.size();
+    }
+}
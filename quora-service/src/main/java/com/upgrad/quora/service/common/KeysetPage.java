@@ -0,0 +1,31 @@
+package com.upgrad.quora.service.common;
+
+import java.util.List;
+
+/**
+ * One page of a keyset paginated list.
+ *
+ * @param <T> type of the items
+ */
+public class KeysetPage<T> {
+
+    private final List<T> items;
+
+    private final String nextCursor;
+
+    public KeysetPage(final List<T> items, final String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return opaque cursor of the next page, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
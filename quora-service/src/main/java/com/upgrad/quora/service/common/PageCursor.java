@@ -0,0 +1,79 @@
+package com.upgrad.quora.service.common;
+
+import com.upgrad.quora.service.exception.InvalidPageRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque cursors handed out by keyset paginated endpoints.
+ * A cursor carries the sort key of the last item of a page, the next page starts right after it.
+ */
+public final class PageCursor {
+
+    private PageCursor() {
+    }
+
+    /**
+     * @param keys sort key of the last item of the page, most significant first
+     * @return url safe cursor
+     */
+    public static String encode(final Object... keys) {
+        StringBuilder cursor = new StringBuilder();
+        for (Object key : keys) {
+            if (cursor.length() > 0) {
+                cursor.append('|');
+            }
+            cursor.append(key);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor   cursor previously returned by encode
+     * @param keyCount number of keys the cursor must carry
+     * @return the keys of the cursor as strings
+     * @throws InvalidPageRequestException if the cursor is malformed
+     */
+    public static String[] decode(final String cursor, final int keyCount) throws InvalidPageRequestException {
+        try {
+            String[] keys = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+            if (keys.length != keyCount) {
+                throw new InvalidPageRequestException("PAG-001", "Invalid cursor");
+            }
+            return keys;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPageRequestException("PAG-001", "Invalid cursor");
+        }
+    }
+
+    /**
+     * @param cursor cursor carrying a single numeric key
+     * @return the key of the cursor
+     * @throws InvalidPageRequestException if the cursor is malformed
+     */
+    public static int decodeId(final String cursor) throws InvalidPageRequestException {
+        try {
+            return Integer.parseInt(decode(cursor, 1)[0]);
+        } catch (NumberFormatException e) {
+            throw new InvalidPageRequestException("PAG-001", "Invalid cursor");
+        }
+    }
+
+    /**
+     * @param limit           requested page size, or null for the default
+     * @param defaultPageSize page size used when none is requested
+     * @param maxPageSize     upper bound of the page size
+     * @return the page size to use
+     * @throws InvalidPageRequestException if the requested page size is not positive
+     */
+    public static int pageSize(final Integer limit, final int defaultPageSize, final int maxPageSize) throws InvalidPageRequestException {
+        if (limit == null) {
+            return Math.min(defaultPageSize, maxPageSize);
+        }
+        if (limit < 1) {
+            throw new InvalidPageRequestException("PAG-002", "Page size must be greater than zero");
+        }
+        return Math.min(limit, maxPageSize);
+    }
+}
@@ -1,20 +1,40 @@
 package com.upgrad.quora.service.dao;
 
+import com.upgrad.quora.service.cache.EntityCache;
+import com.upgrad.quora.service.dto.AnswerListItem;
+import com.upgrad.quora.service.dto.AnswerSummary;
+import com.upgrad.quora.service.dto.AnswerText;
 import com.upgrad.quora.service.entity.AnswerEntity;
 import com.upgrad.quora.service.entity.QuestionEntity;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Repository
 public class AnswerDao {
 
+    private static final int SCROLL_FETCH_SIZE = 500;
+
     @PersistenceContext
     EntityManager entityManager;
 
+    @Autowired
+    EntityCache entityCache;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
     /**
      * method used to create answer record in database.
      *
@@ -27,13 +47,51 @@ public class AnswerDao {
     }
 
     /**
-     * method used for getting answer for a uuid.
-     * returns null if object does not exist
+     * method used to create answer records in database in JDBC batches.
+     * The persistence context is flushed and cleared after every batch, so it does not grow with the number of answers.
+     *
+     * @param answers answer Objects
+     * @return the persisted, now detached, answer objects
+     */
+    public List<AnswerEntity> createAnswers(List<AnswerEntity> answers) {
+        for (int i = 0; i < answers.size(); i++) {
+            entityManager.persist(answers.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return answers;
+    }
+
+    /**
+     * method used for getting answer for a uuid, read through the answers cache.
+     * returns null if object does not exist.
+     * A cached answer is shared, so the result must only be read, use getManagedAnswerForUuId to edit or delete the answer.
      *
      * @param answerUuId answeruuid string object
      * @return Answer object for the specific uuid
      */
     public AnswerEntity getAnswerForUuId(String answerUuId) {
+        return entityCache.getAnswers().get(answerUuId, this::getManagedAnswerForUuId);
+    }
+
+    /**
+     * method used for getting answer for a uuid, managed by the current persistence context.
+     * The answer is looked up by its natural id first, so an answer already loaded in the persistence context
+     * (for example by the ownership check of the same request) is returned without a query.
+     * returns null if object does not exist
+     *
+     * @param answerUuId answeruuid string object
+     * @return Answer object for the specific uuid
+     */
+    public AnswerEntity getManagedAnswerForUuId(String answerUuId) {
+        AnswerEntity answer = NaturalIds.findResolved(entityManager, AnswerEntity.class, answerUuId);
+        if (answer != null) {
+            return answer;
+        }
         try {
             return entityManager
                     .createNamedQuery("getAnswerForUuid", AnswerEntity.class)
@@ -52,6 +110,7 @@ public class AnswerDao {
      */
     public AnswerEntity editAnswer(AnswerEntity answer) {
         entityManager.persist(answer);
+        entityCache.getAnswers().invalidate(answer.getUuid());
         return answer;
     }
 
@@ -63,24 +122,80 @@ public class AnswerDao {
      */
     public AnswerEntity  deleteAnswer(AnswerEntity answer) {
         entityManager.remove(answer);
+        entityCache.getAnswers().invalidate(answer.getUuid());
         return answer;
     }
 
+    /**
+     * method used for getting the uuids of all answers of a user.
+     *
+     * @param userId id of the user
+     * @return uuids of the answers of the user
+     */
+    public List<String> getAnswerUuidsByUser(final Integer userId) {
+        return entityManager.createNamedQuery("answerUuidsByUser", String.class).setParameter("user", userId).getResultList();
+    }
+
     /**
      * method used for getting answer for a specific question from database.
      * returns null if no answers are there in the database for the specific question.
      *
      * @param question to pass id of question Entity for whom the answer list is required
-     * @return List of answers
+     * @return List of answer summaries
      */
-    public List<AnswerEntity> getAnswersForQuestion(QuestionEntity question) {
+    public List<AnswerSummary> getAnswersForQuestion(QuestionEntity question) {
         try {
-            return entityManager.createNamedQuery("getAnswerForQuestion", AnswerEntity.class)
+            return entityManager.createNamedQuery("getAnswerSummariesForQuestion", AnswerSummary.class)
                     .setParameter("question", question)
                     .getResultList();
         } catch (NoResultException e) {
             return null;
         }
     }
-}
 
+    /**
+     * method used for getting one page of the answers to a question, oldest first, read from the (question_id, date, id) index.
+     *
+     * @param questionId id of the question
+     * @param afterDate  date of the last answer of the previous page, or null for the first page
+     * @param afterId    id of the last answer of the previous page, ignored for the first page
+     * @param limit      maximum number of answers
+     * @return the answers dated after afterDate, or on afterDate with an id above afterId
+     */
+    public List<AnswerListItem> getAnswersPage(final Integer questionId, final ZonedDateTime afterDate, final Integer afterId, final int limit) {
+        TypedQuery<AnswerListItem> query = afterDate == null
+                ? entityManager.createNamedQuery("getAnswerListItemsForQuestion", AnswerListItem.class)
+                : entityManager.createNamedQuery("getAnswerListItemsForQuestionAfter", AnswerListItem.class)
+                .setParameter("date", afterDate)
+                .setParameter("id", afterId);
+        return query.setParameter("question", questionId).setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * method used for scrolling over the text of all answers with a server side cursor.
+     * The answers are not loaded as entities, so the persistence context does not grow with the result. Must be called in a transaction.
+     *
+     * @param consumer consumer of the answer texts
+     */
+    public void scrollAllAnswerTexts(final Consumer<AnswerText> consumer) {
+        @SuppressWarnings("unchecked")
+        Query<AnswerText> query = entityManager.createNamedQuery("getAllAnswerTexts", AnswerText.class)
+                .unwrap(Query.class)
+                .setFetchSize(SCROLL_FETCH_SIZE);
+        try (ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                consumer.accept((AnswerText) results.get(0));
+            }
+        }
+    }
+
+    /**
+     * method used for getting the id of the question of an answer without loading the question, which may be a lazy proxy.
+     *
+     * @param answer answer Object
+     * @return id of the question
+     */
+    public Integer getQuestionId(AnswerEntity answer) {
+        return (Integer) entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(answer.getQuestion());
+    }
+}
@@ -0,0 +1,39 @@
+package com.upgrad.quora.service.dao;
+
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
+import javax.persistence.EntityManager;
+import java.io.Serializable;
+
+/**
+ * Lookups of entities by their natural id (the uuid columns) that are answered without SQL when possible.
+ * Hibernate keeps a natural id to id cross reference for every entity with a natural id it loads or persists,
+ * so an entity looked up again in the same persistence context, for example by a second service method
+ * of the same request, is returned from the persistence context instead of being queried again.
+ * The cross reference lookup also consults Hibernate's natural id cache, if a second-level cache is configured.
+ */
+final class NaturalIds {
+
+    private NaturalIds() {
+    }
+
+    /**
+     * @param entityManager entity manager of the current persistence context
+     * @param entityClass   class of the entity, which must map a simple natural id
+     * @param naturalId     natural id value
+     * @return the entity if its natural id has been resolved before and it is still managed, otherwise null,
+     * in which case the caller queries the entity
+     */
+    static <T> T findResolved(final EntityManager entityManager, final Class<T> entityClass, final Object naturalId) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(entityClass);
+        Serializable id = session.getPersistenceContext().getNaturalIdHelper()
+                .findCachedNaturalIdResolution(persister, new Object[]{naturalId});
+        if (id == null || id == PersistenceContext.NaturalIdHelper.INVALID_NATURAL_ID_REFERENCE) {
+            return null;
+        }
+        return entityManager.find(entityClass, id);
+    }
+}
@@ -1,31 +1,154 @@
 package com.upgrad.quora.service.dao;
 
+import com.upgrad.quora.service.cache.EntityCache;
+import com.upgrad.quora.service.dto.QuestionFeedItem;
+import com.upgrad.quora.service.dto.QuestionSummary;
 import com.upgrad.quora.service.entity.QuestionEntity;
 import com.upgrad.quora.service.entity.UserEntity;
+import com.upgrad.quora.service.search.SearchHit;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Repository
 public class QuestionDao {
 
+    private static final int SCROLL_FETCH_SIZE = 500;
+
+    //matches any of the words of the query, as plainto_tsquery alone would require all of them
+    private static final String SEARCH_TSQUERY = "cast(replace(cast(plainto_tsquery('english', :query) as text), ' & ', ' | ') as tsquery)";
+
+    private static final String REPAIR_ANSWER_ACTIVITY_SQL = "update question q set answer_count = a.answer_count, last_answer_at = a.last_answer_at"
+            + " from (select q2.id, count(a2.id) as answer_count, max(a2.date) as last_answer_at"
+            + " from question q2 left join answer a2 on a2.question_id = q2.id where q2.id > :fromId and q2.id <= :toId group by q2.id) a"
+            + " where q.id = a.id and (q.answer_count, q.last_answer_at) is distinct from (a.answer_count, a.last_answer_at)";
+
+    /**
+     * Ranks the questions matching the query through their own or their answers' search vectors, which are GIN indexed
+     * (see migration V007), by the sum of their ts_rank, keyset paginated by rank and id.
+     */
+    public static final String SEARCH_QUESTIONS_SQL = "select q.id, q.uuid, q.content, m.rank"
+            + " from (select matches.question_id, cast(sum(matches.rank) as real) as rank"
+            + " from (select q.id as question_id, ts_rank(q.search_vector, " + SEARCH_TSQUERY + ") as rank from question q where q.search_vector @@ " + SEARCH_TSQUERY
+            + " union all select a.question_id, ts_rank(a.search_vector, " + SEARCH_TSQUERY + ") from answer a where a.search_vector @@ " + SEARCH_TSQUERY + ") matches"
+            + " group by matches.question_id) m"
+            + " join question q on q.id = m.question_id"
+            + " where m.rank < cast(:afterRank as real) or (m.rank = cast(:afterRank as real) and q.id < :afterId)"
+            + " order by m.rank desc, q.id desc";
+
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Autowired
+    private EntityCache entityCache;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
     public QuestionEntity createQuestion(QuestionEntity questionEntity){
         entityManager.persist(questionEntity);
         return questionEntity;
     }
 
-    public List<QuestionEntity> getAllQuestions(){
-        return entityManager.createNamedQuery("getAllQuestions", QuestionEntity.class).getResultList();
+    /**
+     * Persists the questions in JDBC batches. The persistence context is flushed and cleared after every batch,
+     * so it does not grow with the number of questions. Must be called in a transaction.
+     *
+     * @param questionEntities questions to persist
+     * @return the persisted, now detached, questions
+     */
+    public List<QuestionEntity> createQuestions(final List<QuestionEntity> questionEntities) {
+        for (int i = 0; i < questionEntities.size(); i++) {
+            entityManager.persist(questionEntities.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return questionEntities;
     }
 
+    /**
+     * Gets a page of question summaries ordered by id, newest first.
+     *
+     * @param beforeId id of the last question of the previous page, or null for the first page
+     * @param limit    maximum number of questions
+     * @return summaries of the questions with an id lower than beforeId
+     */
+    public List<QuestionSummary> getQuestionsPage(final Integer beforeId, final int limit) {
+        TypedQuery<QuestionSummary> query = beforeId == null
+                ? entityManager.createNamedQuery("getAllQuestionSummaries", QuestionSummary.class)
+                : entityManager.createNamedQuery("getQuestionSummariesBeforeId", QuestionSummary.class).setParameter("id", beforeId);
+        return query.setMaxResults(limit).getResultList();
+    }
 
+    /**
+     * @param limit maximum number of questions
+     * @return the newest questions by date with their authors and numbers of answers, newest first
+     */
+    public List<QuestionFeedItem> getNewestQuestionFeedItems(final int limit) {
+        return entityManager.createNamedQuery("getNewestQuestionFeedItems", QuestionFeedItem.class).setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * Scrolls over the summaries of all questions, newest first, with a server side cursor.
+     * Summaries are not managed, so the persistence context does not grow with the result. Must be called in a transaction.
+     *
+     * @param consumer consumer of the question summaries
+     */
+    public void scrollAllQuestions(final Consumer<QuestionSummary> consumer) {
+        @SuppressWarnings("unchecked")
+        Query<QuestionSummary> query = entityManager.createNamedQuery("getAllQuestionSummaries", QuestionSummary.class)
+                .unwrap(Query.class)
+                .setFetchSize(SCROLL_FETCH_SIZE);
+        try (ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                consumer.accept((QuestionSummary) results.get(0));
+            }
+        }
+    }
+
+
+    /**
+     * Read-through cached lookup of a question and its user. A cached question is shared, so the result
+     * must only be read; use getManagedQuestionByUuid to edit or delete the question.
+     *
+     * @param uuid uuid of the question
+     * @return the question, or null if it does not exist
+     */
     public QuestionEntity getQuestionByUuid(final String uuid) {
+        return entityCache.getQuestions().get(uuid, this::getManagedQuestionByUuid);
+    }
+
+    /**
+     * Looks the question up by its natural id first, so a question already loaded in the current persistence context
+     * is returned without a query.
+     *
+     * @param uuid uuid of the question
+     * @return the question and its user, managed by the current persistence context, or null if it does not exist
+     */
+    public QuestionEntity getManagedQuestionByUuid(final String uuid) {
+        QuestionEntity questionEntity = NaturalIds.findResolved(entityManager, QuestionEntity.class, uuid);
+        if (questionEntity != null) {
+            return questionEntity;
+        }
         try {
             return entityManager.createNamedQuery("questionEntityByUuid", QuestionEntity.class).setParameter("uuid",uuid).getSingleResult();
         } catch (NoResultException nre) {
@@ -33,21 +156,142 @@ public class QuestionDao {
         }
     }
 
+    /**
+     * Resolves many question uuids with one query.
+     *
+     * @param uuids uuids of the questions, must not be empty
+     * @return ids of the questions by uuid, unknown uuids are missing
+     */
+    public Map<String, Integer> getQuestionIdsByUuids(final Collection<String> uuids) {
+        List<Object[]> rows = entityManager.createNamedQuery("questionIdsByUuids", Object[].class).setParameter("uuids", uuids).getResultList();
+        Map<String, Integer> questionIds = new HashMap<String, Integer>();
+        for (Object[] row : rows) {
+            questionIds.put((String) row[0], (Integer) row[1]);
+        }
+        return questionIds;
+    }
+
+    /**
+     * @param id id of an existing question
+     * @return a reference to the question that can be set on associations without loading the question
+     */
+    public QuestionEntity getQuestionReference(final Integer id) {
+        return entityManager.getReference(QuestionEntity.class, id);
+    }
+
     public QuestionEntity editQuestionContent(final QuestionEntity questionEntity) {
-        return entityManager.merge(questionEntity);
+        QuestionEntity mergedQuestionEntity = entityManager.merge(questionEntity);
+        entityCache.getQuestions().invalidate(questionEntity.getUuid());
+        return mergedQuestionEntity;
     }
 
     public QuestionEntity deleteQuestion(QuestionEntity questionEntity) {
+        //the answers of the question are deleted by the database, so their uuids are read before the question is removed
+        List<String> answerUuids = entityManager.createNamedQuery("answerUuidsForQuestion", String.class)
+                .setParameter("question", questionEntity.getId()).getResultList();
         entityManager.remove(questionEntity);
+        entityCache.getQuestions().invalidate(questionEntity.getUuid());
+        answerUuids.forEach(entityCache.getAnswers()::invalidate);
         return questionEntity;
     }
 
-    public List<QuestionEntity> getAllQuestionsByUser(UserEntity user){
+    /**
+     * @param userId id of the user
+     * @return ids of the questions of the user
+     */
+    public List<Integer> getQuestionIdsByUser(final Integer userId) {
+        return entityManager.createNamedQuery("questionIdsByUser", Integer.class).setParameter("user", userId).getResultList();
+    }
+
+    public List<QuestionSummary> getAllQuestionsByUser(UserEntity user){
         try {
-            return entityManager.createNamedQuery("questionListByUuid", QuestionEntity.class).setParameter("user",user).getResultList();
+            return entityManager.createNamedQuery("questionSummariesByUser", QuestionSummary.class).setParameter("user",user).getResultList();
         } catch (NoResultException nre) {
             return null;
         }
     }
 
+    /**
+     * Full-text search of the questions and their answers in the database.
+     *
+     * @param query     words to search for, any of which must match
+     * @param afterRank rank of the last hit of the previous page, or positive infinity for the first page
+     * @param afterId   id of the last hit of the previous page, or Integer.MAX_VALUE for the first page
+     * @param limit     maximum number of hits
+     * @return the matching questions ranked after the given rank and id, best first
+     */
+    public List<SearchHit<QuestionSummary>> searchQuestions(final String query, final double afterRank, final int afterId, final int limit) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(SEARCH_QUESTIONS_SQL)
+                .setParameter("query", query)
+                .setParameter("afterRank", afterRank)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit)
+                .getResultList();
+        List<SearchHit<QuestionSummary>> hits = new ArrayList<SearchHit<QuestionSummary>>(rows.size());
+        for (Object[] row : rows) {
+            Integer id = ((Number) row[0]).intValue();
+            hits.add(new SearchHit<QuestionSummary>(id, new QuestionSummary(id, (String) row[1], (String) row[2]), ((Number) row[3]).doubleValue()));
+        }
+        return hits;
+    }
+
+    /**
+     * Counts answers added to a question and moves its latest answer date forward, with one UPDATE of the question row,
+     * which also locks the row until the transaction ends.
+     *
+     * @param id         id of the question
+     * @param answers    number of added answers
+     * @param answeredAt date of the latest added answer
+     * @return number of updated questions, 0 if the question has been deleted meanwhile
+     */
+    public int addAnswers(final Integer id, final int answers, final ZonedDateTime answeredAt) {
+        return entityManager.createNamedQuery("addQuestionAnswers")
+                .setParameter("answers", answers)
+                .setParameter("answeredAt", answeredAt)
+                .setParameter("id", id)
+                .executeUpdate();
+    }
+
+    /**
+     * Uncounts an answer deleted from a question and sets its latest answer date to that of the remaining answers,
+     * with one UPDATE of the question row.
+     *
+     * @param id       id of the question
+     * @param answerId id of the deleted answer
+     * @return number of updated questions, 0 if the question has been deleted meanwhile
+     */
+    public int removeAnswer(final Integer id, final Integer answerId) {
+        return entityManager.createNamedQuery("removeQuestionAnswer")
+                .setParameter("id", id)
+                .setParameter("answerId", answerId)
+                .executeUpdate();
+    }
+
+    /**
+     * @return highest question id, or null if there are no questions
+     */
+    public Integer getMaxQuestionId() {
+        return entityManager.createNamedQuery("maxQuestionId", Integer.class).getSingleResult();
+    }
+
+    /**
+     * Recomputes the answer count and latest answer date of the questions with ids in (fromId, toId] from their answers.
+     * The question rows are locked first, so that answers added or deleted by transactions still running when the
+     * repair starts are committed, and seen by the recomputation, before it runs. Must be called in a transaction.
+     *
+     * @param fromId questions with a higher id are repaired
+     * @param toId   questions with this or a lower id are repaired
+     * @return number of questions whose answer count or latest answer date was wrong
+     */
+    public int repairAnswerActivity(final int fromId, final int toId) {
+        entityManager.createNativeQuery("select id from question where id > :fromId and id <= :toId order by id for update")
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .getResultList();
+        return entityManager.createNativeQuery(REPAIR_ANSWER_ACTIVITY_SQL)
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .executeUpdate();
+    }
 }
@@ -1,11 +1,16 @@
 package com.upgrad.quora.service.dao;
 
 import com.upgrad.quora.service.entity.UserAuthTokenEntity;
+import com.upgrad.quora.service.entity.UserRevocationEntity;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public class UserAuthDao {
@@ -16,19 +21,109 @@ public class UserAuthDao {
      * Gets the user auth information based on the access token.
      *
      * @param accessToken access token of the user auth whose details is to be fetched.
+     * @param issuedAt    issue time of the access token, which is its login time truncated to seconds, or null if not known
      * @return A single user auth object or null
      */
-    public UserAuthTokenEntity getUserAuthByToken(final String accessToken) {
+    public UserAuthTokenEntity getUserAuthByToken(final String accessToken, final ZonedDateTime issuedAt) {
         try {
-            return entityManager
-                    .createNamedQuery("userAuthTokenByAccessToken", UserAuthTokenEntity.class)
-                    .setParameter("accessToken", accessToken)
-                    .getSingleResult();
+            return createUserAuthByTokenQuery(entityManager, accessToken, issuedAt).getSingleResult();
         } catch (NoResultException nre) {
             return null;
         }
     }
 
+    /**
+     * user_auth is partitioned by LOGIN_AT, so when the issue time of the token is known the user auth is looked up
+     * within the second it was signed in, which restricts the lookup to the partition of that day.
+     */
+    static TypedQuery<UserAuthTokenEntity> createUserAuthByTokenQuery(final EntityManager entityManager, final String accessToken,
+                                                                     final ZonedDateTime issuedAt) {
+        if (issuedAt == null) {
+            return entityManager
+                    .createNamedQuery("userAuthTokenByAccessToken", UserAuthTokenEntity.class)
+                    .setParameter("accessToken", accessToken);
+        }
+        return entityManager
+                .createNamedQuery("userAuthTokenByAccessTokenAndLoginAt", UserAuthTokenEntity.class)
+                .setParameter("accessToken", accessToken)
+                .setParameter("loginFrom", issuedAt)
+                .setParameter("loginTo", issuedAt.plusSeconds(1));
+    }
+
+    /**
+     * Gets access token, expiry and logout time of the user auths signed out since the given time which have not expired yet.
+     *
+     * @param since earliest logout time to be fetched.
+     * @param now   current time, user auths expired before it are skipped.
+     * @return rows of access token, expires at and logout at
+     */
+    public List<Object[]> getRevokedUserAuthsSince(final ZonedDateTime since, final ZonedDateTime now) {
+        return entityManager
+                .createNamedQuery("revokedUserAuthsSince", Object[].class)
+                .setParameter("since", since)
+                .setParameter("now", now)
+                .getResultList();
+    }
+
+    /**
+     * Gets user uuid, revocation time and expiry of the user revocations written since the given time which have not
+     * expired yet.
+     *
+     * @param since earliest revocation time to be fetched.
+     * @param now   current time, revocations expired before it are skipped.
+     * @return rows of user uuid, revoked at and expires at
+     */
+    public List<Object[]> getUserRevocationsSince(final ZonedDateTime since, final ZonedDateTime now) {
+        return entityManager
+                .createNamedQuery("userRevocationsSince", Object[].class)
+                .setParameter("since", since)
+                .setParameter("now", now)
+                .getResultList();
+    }
+
+    /**
+     * Persist UserRevocationEntity object in DB.
+     *
+     * @param userRevocation to be persisted in the DB.
+     * @return Persisted UserRevocationEntity object
+     */
+    public UserRevocationEntity createUserRevocation(final UserRevocationEntity userRevocation) {
+        entityManager.persist(userRevocation);
+        return userRevocation;
+    }
+
+    /**
+     * Gets the ids of one chunk of user auths that are no longer needed: those expired before the expiry retention,
+     * and those signed out before the logout retention which have expired as well. Signed out user auths are kept
+     * until they expire, as the TokenRevocationSet is synced from their logout time.
+     *
+     * @param expiredBefore   user auths expired before this time are reapable
+     * @param loggedOutBefore expired user auths signed out before this time are reapable
+     * @param now             current time
+     * @param chunkSize       maximum number of ids returned
+     * @return ids of reapable user auths
+     */
+    public List<Integer> getReapableUserAuthIds(final ZonedDateTime expiredBefore, final ZonedDateTime loggedOutBefore,
+                                                final ZonedDateTime now, final int chunkSize) {
+        return entityManager
+                .createNamedQuery("reapableUserAuthIds", Integer.class)
+                .setParameter("expiredBefore", expiredBefore)
+                .setParameter("loggedOutBefore", loggedOutBefore)
+                .setParameter("now", now)
+                .setMaxResults(chunkSize)
+                .getResultList();
+    }
+
+    /**
+     * Deletes user auths with one DELETE, without loading them.
+     *
+     * @param ids ids of the user auths, must not be empty
+     * @return number of deleted user auths
+     */
+    public int deleteUserAuths(final Collection<Integer> ids) {
+        return entityManager.createNamedQuery("deleteUserAuthsByIds").setParameter("ids", ids).executeUpdate();
+    }
+
     /**
      * Persist UserAuthEntity object in DB.
      *
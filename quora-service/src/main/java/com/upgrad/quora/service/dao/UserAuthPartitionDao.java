@@ -0,0 +1,110 @@
+package com.upgrad.quora.service.dao;
+
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Manages the daily partitions of the user_auth table, which is range partitioned by LOGIN_AT (see migration V006).
+ * The partition of a day is named user_auth_pyyyymmdd and holds the user auths signed in on that day; user auths of
+ * days without a partition go to user_auth_default. Partition names are only ever built from dates here.
+ */
+@Repository
+public class UserAuthPartitionDao {
+
+    private static final String DEFAULT_PARTITION = "user_auth_default";
+
+    private static final DateTimeFormatter PARTITION_DAY = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("user_auth_p(\\d{8})");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * @return days that have a partition, in no particular order
+     */
+    public List<LocalDate> getPartitionDays() {
+        @SuppressWarnings("unchecked")
+        List<String> partitionNames = entityManager
+                .createNativeQuery("select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid where i.inhparent = to_regclass('user_auth')")
+                .getResultList();
+        List<LocalDate> days = new ArrayList<LocalDate>();
+        for (String partitionName : partitionNames) {
+            Matcher matcher = PARTITION_NAME.matcher(partitionName);
+            if (matcher.matches()) {
+                days.add(LocalDate.parse(matcher.group(1), PARTITION_DAY));
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Limits how long the DDL of the current transaction waits for the locks on user_auth, so that it gives up
+     * instead of queueing sign-ins behind it while a long transaction holds the table.
+     *
+     * @param lockTimeoutMillis lock timeout in millis
+     */
+    public void setLockTimeout(final long lockTimeoutMillis) {
+        entityManager.createNativeQuery("select set_config('lock_timeout', :lockTimeout, true)")
+                .setParameter("lockTimeout", lockTimeoutMillis + "ms")
+                .getSingleResult();
+    }
+
+    /**
+     * @param day day of the partition
+     * @return true if the default partition holds user auths signed in on the day, which keeps its partition from being created
+     */
+    public boolean hasDefaultPartitionUserAuths(final LocalDate day) {
+        return !entityManager
+                .createNativeQuery("select 1 from " + DEFAULT_PARTITION + " where LOGIN_AT >= :loginFrom and LOGIN_AT < :loginTo limit 1")
+                .setParameter("loginFrom", Timestamp.valueOf(day.atStartOfDay()))
+                .setParameter("loginTo", Timestamp.valueOf(day.plusDays(1).atStartOfDay()))
+                .getResultList().isEmpty();
+    }
+
+    /**
+     * Creates the partition of the day unless it exists.
+     *
+     * @param day day of the partition
+     */
+    public void createPartition(final LocalDate day) {
+        entityManager.createNativeQuery("create table if not exists " + partitionName(day)
+                + " partition of user_auth for values from ('" + day + "') to ('" + day.plusDays(1) + "')")
+                .executeUpdate();
+    }
+
+    /**
+     * @param day         day of the partition
+     * @param expiresFrom time from which user auths are still needed
+     * @return true if the partition of the day holds a user auth expiring at or after expiresFrom
+     */
+    public boolean hasUserAuthsExpiringFrom(final LocalDate day, final ZonedDateTime expiresFrom) {
+        return !entityManager
+                .createNativeQuery("select 1 from " + partitionName(day) + " where EXPIRES_AT >= :expiresFrom limit 1")
+                .setParameter("expiresFrom", Timestamp.from(expiresFrom.toInstant()))
+                .getResultList().isEmpty();
+    }
+
+    /**
+     * Drops the partition of the day with all of its user auths.
+     *
+     * @param day day of the partition
+     */
+    public void dropPartition(final LocalDate day) {
+        entityManager.createNativeQuery("drop table if exists " + partitionName(day)).executeUpdate();
+    }
+
+    private static String partitionName(final LocalDate day) {
+        return "user_auth_p" + day.format(PARTITION_DAY);
+    }
+}
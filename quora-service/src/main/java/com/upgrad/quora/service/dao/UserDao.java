@@ -1,12 +1,20 @@
 package com.upgrad.quora.service.dao;
 
+import com.upgrad.quora.service.cache.EntityCache;
 import com.upgrad.quora.service.entity.UserAuthTokenEntity;
 import com.upgrad.quora.service.entity.UserEntity;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Repository
 public class UserDao {
@@ -15,6 +23,9 @@ public class UserDao {
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Autowired
+    private EntityCache entityCache;
+
     public UserEntity createUser(UserEntity userEntity) {
         try {
             entityManager.persist(userEntity);
@@ -26,7 +37,17 @@ public class UserDao {
 
     }
 
+    //read-through cached, the result must only be read; use getManagedUserByUserid to update or delete the user
     public UserEntity getUserByUserid(final String uuid) {
+        return entityCache.getUsers().get(uuid, this::getManagedUserByUserid);
+    }
+
+    //looks the user up by its natural id first, so a user already loaded in the persistence context needs no query
+    public UserEntity getManagedUserByUserid(final String uuid) {
+        UserEntity userEntity = NaturalIds.findResolved(entityManager, UserEntity.class, uuid);
+        if (userEntity != null) {
+            return userEntity;
+        }
         try {
             return entityManager.createNamedQuery("userByUuid", UserEntity.class).setParameter("uuid", uuid)
                     .getSingleResult();
@@ -35,14 +56,42 @@ public class UserDao {
         }
     }
 
+    /**
+     * Resolves many user uuids with one query.
+     *
+     * @param uuids uuids of the users, must not be empty
+     * @return ids of the users by uuid, unknown uuids are missing
+     */
+    public Map<String, Integer> getUserIdsByUuids(final Collection<String> uuids) {
+        List<Object[]> rows = entityManager.createNamedQuery("userIdsByUuids", Object[].class).setParameter("uuids", uuids).getResultList();
+        Map<String, Integer> userIds = new HashMap<String, Integer>();
+        for (Object[] row : rows) {
+            userIds.put((String) row[0], (Integer) row[1]);
+        }
+        return userIds;
+    }
+
+    /**
+     * @param id id of an existing user
+     * @return a reference to the user that can be set on associations without loading the user
+     */
+    public UserEntity getUserReference(final Integer id) {
+        return entityManager.getReference(UserEntity.class, id);
+    }
+
     public UserAuthTokenEntity createAuthToken(final UserAuthTokenEntity userAuthTokenEntity) {
         entityManager.persist(userAuthTokenEntity);
         return userAuthTokenEntity;
     }
 
-    public UserAuthTokenEntity getUserAuthToken(final String accessToken) {
+    /**
+     * @param accessToken access token of the user
+     * @param issuedAt    issue time of the access token, which is its login time truncated to seconds, or null if not known
+     * @return user auth of the access token with its user, or null
+     */
+    public UserAuthTokenEntity getUserAuthToken(final String accessToken, final ZonedDateTime issuedAt) {
         try {
-            return entityManager.createNamedQuery("userAuthTokenByAccessToken", UserAuthTokenEntity.class).setParameter("accessToken", accessToken).getSingleResult();
+            return UserAuthDao.createUserAuthByTokenQuery(entityManager, accessToken, issuedAt).getSingleResult();
         } catch (NoResultException nre) {
 
             return null;
@@ -52,6 +101,28 @@ public class UserDao {
 
     public void updateUser(final UserEntity updatedUserEntity) {
         entityManager.merge(updatedUserEntity);
+        entityCache.getUsers().invalidate(updatedUserEntity.getUuid());
+    }
+
+    /**
+     * Adds logins to the login audit columns of a user with one UPDATE, without loading the user.
+     * The cached snapshots of the user are not invalidated, so they show the login audit of when they were loaded.
+     * The last login time and client only move forward, so instances flushing their logins out of order cannot set
+     * an older login as the last one.
+     *
+     * @param id          id of the user
+     * @param lastLoginAt time of the latest of the logins
+     * @param logins      number of logins to add to the login count
+     * @param client      client of the latest of the logins
+     * @return number of updated users, 0 if the user has been deleted meanwhile
+     */
+    public int updateLoginAudit(final Integer id, final ZonedDateTime lastLoginAt, final int logins, final String client) {
+        return entityManager.createNamedQuery("updateUserLoginAudit")
+                .setParameter("lastLoginAt", lastLoginAt)
+                .setParameter("logins", logins)
+                .setParameter("client", client)
+                .setParameter("id", id)
+                .executeUpdate();
     }
 
     //this method is used by Authentication service to get user entity for JWT generation
@@ -72,9 +143,34 @@ public class UserDao {
     }
     //this method is used by Admin service to delete user
     public UserEntity deleteUser(final String uuid) {
-        UserEntity deleteUser = getUserByUserid(uuid);
+        UserEntity deleteUser = getManagedUserByUserid(uuid);
         if (deleteUser != null) {
+            //the questions and answers of the user, and the answers to its questions, are deleted by the database,
+            //so their uuids are read before the user is removed
+            List<String> questionUuids = new ArrayList<>(entityManager.createNamedQuery("questionUuidsByUser", String.class)
+                    .setParameter("user", deleteUser.getId()).getResultList());
+            List<String> answerUuids = new ArrayList<>(entityManager.createNamedQuery("answerUuidsByUser", String.class)
+                    .setParameter("user", deleteUser.getId()).getResultList());
+            answerUuids.addAll(entityManager.createNamedQuery("answerUuidsForQuestionsOfUser", String.class)
+                    .setParameter("user", deleteUser.getId()).getResultList());
+            //the answers of the user to the questions of other users are uncounted from these questions
+            List<Object[]> answeredQuestions = entityManager.createNamedQuery("questionsAnsweredByUser", Object[].class)
+                    .setParameter("user", deleteUser.getId()).getResultList();
+            List<Integer> answeredQuestionIds = new ArrayList<>();
+            for (Object[] answeredQuestion : answeredQuestions) {
+                answeredQuestionIds.add((Integer) answeredQuestion[0]);
+                questionUuids.add((String) answeredQuestion[1]);
+            }
+            if (!answeredQuestionIds.isEmpty()) {
+                entityManager.createNamedQuery("removeQuestionAnswersOfUser")
+                        .setParameter("user", deleteUser.getId())
+                        .setParameter("ids", answeredQuestionIds)
+                        .executeUpdate();
+            }
             this.entityManager.remove(deleteUser);
+            entityCache.getUsers().invalidate(uuid);
+            questionUuids.forEach(entityCache.getQuestions()::invalidate);
+            answerUuids.forEach(entityCache.getAnswers()::invalidate);
         }
         return deleteUser;
     }
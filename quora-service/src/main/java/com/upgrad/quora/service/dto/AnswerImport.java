@@ -0,0 +1,49 @@
+package com.upgrad.quora.service.dto;
+
+import com.upgrad.quora.service.entity.AnswerEntity;
+
+/**
+ * One answer of a bulk answer import, with the uuids of its question and author still to be resolved.
+ * The import sets the error message if the answer could not be imported.
+ */
+public class AnswerImport {
+
+    private final AnswerEntity answer;
+
+    private final String questionUuid;
+
+    private final String userUuid;
+
+    private String errorMessage;
+
+    /**
+     * @param answer       answer to create
+     * @param questionUuid uuid of the question answered
+     * @param userUuid     uuid of the author, or null if the answer is posted by the importing admin
+     */
+    public AnswerImport(final AnswerEntity answer, final String questionUuid, final String userUuid) {
+        this.answer = answer;
+        this.questionUuid = questionUuid;
+        this.userUuid = userUuid;
+    }
+
+    public AnswerEntity getAnswer() {
+        return answer;
+    }
+
+    public String getQuestionUuid() {
+        return questionUuid;
+    }
+
+    public String getUserUuid() {
+        return userUuid;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(final String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+}
@@ -0,0 +1,48 @@
+package com.upgrad.quora.service.dto;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Immutable projection of an answer for the paginated answer list of a question, with the uuid of its author.
+ * Selected directly by the constructor expression queries of AnswerEntity, so no entity is hydrated.
+ */
+public class AnswerListItem {
+
+    private final Integer id;
+
+    private final String uuid;
+
+    private final String answer;
+
+    private final ZonedDateTime date;
+
+    private final String userUuid;
+
+    public AnswerListItem(final Integer id, final String uuid, final String answer, final ZonedDateTime date, final String userUuid) {
+        this.id = id;
+        this.uuid = uuid;
+        this.answer = answer;
+        this.date = date;
+        this.userUuid = userUuid;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public String getAnswer() {
+        return answer;
+    }
+
+    public ZonedDateTime getDate() {
+        return date;
+    }
+
+    public String getUserUuid() {
+        return userUuid;
+    }
+}
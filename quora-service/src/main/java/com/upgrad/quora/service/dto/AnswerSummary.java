@@ -0,0 +1,32 @@
+package com.upgrad.quora.service.dto;
+
+/**
+ * Read-only projection of an answer and the content of its question for the answer list endpoint.
+ * Selected directly by the constructor expression queries of AnswerEntity, so no entity is hydrated.
+ */
+public class AnswerSummary {
+
+    private final String uuid;
+
+    private final String answer;
+
+    private final String questionContent;
+
+    public AnswerSummary(final String uuid, final String answer, final String questionContent) {
+        this.uuid = uuid;
+        this.answer = answer;
+        this.questionContent = questionContent;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public String getAnswer() {
+        return answer;
+    }
+
+    public String getQuestionContent() {
+        return questionContent;
+    }
+}
@@ -0,0 +1,32 @@
+package com.upgrad.quora.service.dto;
+
+/**
+ * Read-only projection of the text of an answer and the id of its question, for building the search index.
+ * Selected directly by the constructor expression queries of AnswerEntity, so no entity is hydrated.
+ */
+public class AnswerText {
+
+    private final String uuid;
+
+    private final Integer questionId;
+
+    private final String answer;
+
+    public AnswerText(final String uuid, final Integer questionId, final String answer) {
+        this.uuid = uuid;
+        this.questionId = questionId;
+        this.answer = answer;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public Integer getQuestionId() {
+        return questionId;
+    }
+
+    public String getAnswer() {
+        return answer;
+    }
+}
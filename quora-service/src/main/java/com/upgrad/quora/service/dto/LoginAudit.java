@@ -0,0 +1,59 @@
+package com.upgrad.quora.service.dto;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Logins of one user that are still to be written to the login audit columns of the user,
+ * coalesced into the number of logins and the time and client of the latest one.
+ */
+public class LoginAudit {
+
+    private final Integer userId;
+
+    private ZonedDateTime lastLoginAt;
+
+    private String lastLoginClient;
+
+    private int logins;
+
+    /**
+     * @param userId  id of the user
+     * @param loginAt time of the login
+     * @param client  client the user signed in from, may be null
+     */
+    public LoginAudit(final Integer userId, final ZonedDateTime loginAt, final String client) {
+        this.userId = userId;
+        this.lastLoginAt = loginAt;
+        this.lastLoginClient = client;
+        this.logins = 1;
+    }
+
+    /**
+     * Adds a later login of the same user.
+     *
+     * @param loginAudit login to add
+     */
+    public void add(final LoginAudit loginAudit) {
+        logins += loginAudit.logins;
+        if (!loginAudit.lastLoginAt.isBefore(lastLoginAt)) {
+            lastLoginAt = loginAudit.lastLoginAt;
+            lastLoginClient = loginAudit.lastLoginClient;
+        }
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public ZonedDateTime getLastLoginAt() {
+        return lastLoginAt;
+    }
+
+    public String getLastLoginClient() {
+        return lastLoginClient;
+    }
+
+    public int getLogins() {
+        return logins;
+    }
+}
@@ -0,0 +1,67 @@
+package com.upgrad.quora.service.dto;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Immutable projection of a question for the question feed, with the uuid of its author and its number of answers.
+ * Selected directly by a constructor expression query of QuestionEntity, so no entity is hydrated.
+ */
+public class QuestionFeedItem {
+
+    private final Integer id;
+
+    private final String uuid;
+
+    private final String content;
+
+    private final ZonedDateTime date;
+
+    private final String userUuid;
+
+    private final int answerCount;
+
+    public QuestionFeedItem(final Integer id, final String uuid, final String content, final ZonedDateTime date, final String userUuid, final Integer answerCount) {
+        this.id = id;
+        this.uuid = uuid;
+        this.content = content;
+        this.date = date;
+        this.userUuid = userUuid;
+        this.answerCount = answerCount == null ? 0 : answerCount;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public ZonedDateTime getDate() {
+        return date;
+    }
+
+    public String getUserUuid() {
+        return userUuid;
+    }
+
+    public int getAnswerCount() {
+        return answerCount;
+    }
+
+    public QuestionFeedItem withContent(final String content) {
+        return new QuestionFeedItem(id, uuid, content, date, userUuid, answerCount);
+    }
+
+    /**
+     * @param delta change of the number of answers
+     * @return this item with the number of answers changed by delta, never below zero
+     */
+    public QuestionFeedItem withAnswerCountChangedBy(final int delta) {
+        return new QuestionFeedItem(id, uuid, content, date, userUuid, Math.max(0, answerCount + delta));
+    }
+}
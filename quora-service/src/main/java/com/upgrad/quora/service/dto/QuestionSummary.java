@@ -0,0 +1,61 @@
+package com.upgrad.quora.service.dto;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Read-only projection of a question for the question list endpoints.
+ * Selected directly by the constructor expression queries of QuestionEntity, so no entity is hydrated.
+ */
+public class QuestionSummary {
+
+    private final Integer id;
+
+    private final String uuid;
+
+    private final String content;
+
+    private final Integer answerCount;
+
+    private final ZonedDateTime lastAnswerAt;
+
+    /**
+     * Summary without the answer activity of the question, for projections that do not select it.
+     */
+    public QuestionSummary(final Integer id, final String uuid, final String content) {
+        this(id, uuid, content, null, null);
+    }
+
+    public QuestionSummary(final Integer id, final String uuid, final String content, final Integer answerCount, final ZonedDateTime lastAnswerAt) {
+        this.id = id;
+        this.uuid = uuid;
+        this.content = content;
+        this.answerCount = answerCount;
+        this.lastAnswerAt = lastAnswerAt;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    /**
+     * @return number of answers to the question, or null if not selected
+     */
+    public Integer getAnswerCount() {
+        return answerCount;
+    }
+
+    /**
+     * @return date of the latest answer to the question, or null if it has none or it was not selected
+     */
+    public ZonedDateTime getLastAnswerAt() {
+        return lastAnswerAt;
+    }
+}
@@ -1,25 +1,36 @@
 package com.upgrad.quora.service.entity;
 
+import org.hibernate.annotations.NaturalId;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
+import java.io.Serializable;
 import java.time.ZonedDateTime;
 
 @Entity
 @Table(name="answer", schema = "public")
 @NamedQueries(
         {
-                @NamedQuery(name="getAnswerForUuid", query = "SELECT a FROM AnswerEntity a WHERE a.uuid=:uuid"),
-                @NamedQuery(name="getAnswerForQuestion", query = "SELECT a FROM AnswerEntity a WHERE a.question=:question")
+                @NamedQuery(name="getAnswerForUuid", query = "SELECT a FROM AnswerEntity a JOIN FETCH a.user WHERE a.uuid=:uuid"),
+                @NamedQuery(name="getAnswerSummariesForQuestion", query = "SELECT new com.upgrad.quora.service.dto.AnswerSummary(a.uuid, a.answer, q.content) FROM AnswerEntity a JOIN a.question q WHERE q=:question"),
+                @NamedQuery(name="getAllAnswerTexts", query = "SELECT new com.upgrad.quora.service.dto.AnswerText(a.uuid, a.question.id, a.answer) FROM AnswerEntity a ORDER BY a.id"),
+                @NamedQuery(name="getAnswerListItemsForQuestion", query = "SELECT new com.upgrad.quora.service.dto.AnswerListItem(a.id, a.uuid, a.answer, a.date, u.uuid) FROM AnswerEntity a JOIN a.user u WHERE a.question.id=:question ORDER BY a.date, a.id"),
+                @NamedQuery(name="getAnswerListItemsForQuestionAfter", query = "SELECT new com.upgrad.quora.service.dto.AnswerListItem(a.id, a.uuid, a.answer, a.date, u.uuid) FROM AnswerEntity a JOIN a.user u WHERE a.question.id=:question AND (a.date, a.id) > (:date, :id) ORDER BY a.date, a.id"),
+                @NamedQuery(name="answerUuidsForQuestion", query = "SELECT a.uuid FROM AnswerEntity a WHERE a.question.id=:question"),
+                @NamedQuery(name="answerUuidsByUser", query = "SELECT a.uuid FROM AnswerEntity a WHERE a.user.id=:user"),
+                @NamedQuery(name="answerUuidsForQuestionsOfUser", query = "SELECT a.uuid FROM AnswerEntity a JOIN a.question q WHERE q.user.id=:user")
         }
 )
-public class AnswerEntity {
+public class AnswerEntity implements Serializable {
 
     @Id
     @Column(name = "id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "answer_id_seq")
+    @SequenceGenerator(name = "answer_id_seq", sequenceName = "answer_id_seq", allocationSize = 50)
     private Integer id;
 
+    @NaturalId
     @Column(name = "uuid")
     @Size(max = 200)
     @NotNull
@@ -33,11 +44,11 @@ public class AnswerEntity {
     @Column(name = "date")
     private ZonedDateTime date;
 
-    @OneToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private UserEntity user;
 
-    @OneToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "question_id")
     private QuestionEntity question;
 
@@ -1,5 +1,7 @@
 package com.upgrad.quora.service.entity;
 
+import org.hibernate.annotations.NaturalId;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -11,18 +13,30 @@ import java.time.ZonedDateTime;
 
 @NamedQueries(
         {
-                @NamedQuery(name = "getAllQuestions", query = "select q from QuestionEntity q"),
-                @NamedQuery(name = "questionEntityByUuid", query = "select qe from QuestionEntity qe where qe.uuid = :uuid"),
-                @NamedQuery(name = "questionListByUuid", query = "select qe from QuestionEntity qe where qe.user = :user")
+                @NamedQuery(name = "getAllQuestionSummaries", query = "select new com.upgrad.quora.service.dto.QuestionSummary(q.id, q.uuid, q.content, q.answerCount, q.lastAnswerAt) from QuestionEntity q order by q.id desc"),
+                @NamedQuery(name = "getQuestionSummariesBeforeId", query = "select new com.upgrad.quora.service.dto.QuestionSummary(q.id, q.uuid, q.content, q.answerCount, q.lastAnswerAt) from QuestionEntity q where q.id < :id order by q.id desc"),
+                @NamedQuery(name = "questionEntityByUuid", query = "select qe from QuestionEntity qe join fetch qe.user where qe.uuid = :uuid"),
+                @NamedQuery(name = "questionSummariesByUser", query = "select new com.upgrad.quora.service.dto.QuestionSummary(qe.id, qe.uuid, qe.content, qe.answerCount, qe.lastAnswerAt) from QuestionEntity qe where qe.user = :user"),
+                @NamedQuery(name = "questionIdsByUuids", query = "select qe.uuid, qe.id from QuestionEntity qe where qe.uuid in :uuids"),
+                @NamedQuery(name = "getNewestQuestionFeedItems", query = "select new com.upgrad.quora.service.dto.QuestionFeedItem(q.id, q.uuid, q.content, q.date, u.uuid, q.answerCount) from QuestionEntity q join q.user u order by q.date desc, q.id desc"),
+                @NamedQuery(name = "addQuestionAnswers", query = "update QuestionEntity q set q.answerCount = q.answerCount + :answers, q.lastAnswerAt = function('greatest', q.lastAnswerAt, :answeredAt) where q.id = :id"),
+                @NamedQuery(name = "removeQuestionAnswer", query = "update QuestionEntity q set q.answerCount = q.answerCount - 1, q.lastAnswerAt = (select max(a.date) from AnswerEntity a where a.question.id = :id and a.id <> :answerId) where q.id = :id"),
+                @NamedQuery(name = "maxQuestionId", query = "select max(q.id) from QuestionEntity q"),
+                @NamedQuery(name = "questionUuidsByUser", query = "select qe.uuid from QuestionEntity qe where qe.user.id = :user"),
+                @NamedQuery(name = "questionIdsByUser", query = "select qe.id from QuestionEntity qe where qe.user.id = :user"),
+                @NamedQuery(name = "questionsAnsweredByUser", query = "select q.id, q.uuid from QuestionEntity q where q.user.id <> :user and q.id in (select a.question.id from AnswerEntity a where a.user.id = :user)"),
+                @NamedQuery(name = "removeQuestionAnswersOfUser", query = "update QuestionEntity q set q.answerCount = q.answerCount - (select count(a.id) from AnswerEntity a where a.question.id = q.id and a.user.id = :user), q.lastAnswerAt = (select max(a.date) from AnswerEntity a where a.question.id = q.id and a.user.id <> :user) where q.id in :ids")
         }
 )
 public class QuestionEntity implements Serializable {
 
     @Id
     @Column(name = "ID")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "question_id_seq")
+    @SequenceGenerator(name = "question_id_seq", sequenceName = "question_id_seq", allocationSize = 50)
     private Integer id;
 
+    @NaturalId
     @Column(name = "UUID")
     @Size(max = 64)
     private String uuid;
@@ -35,10 +49,18 @@ public class QuestionEntity implements Serializable {
     @Column(name = "date")
     private ZonedDateTime date;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private UserEntity user;
 
+    //the answer activity columns are only written by the addQuestionAnswers, removeQuestionAnswer and
+    //removeQuestionAnswersOfUser queries and the QuestionActivityRepairer, never by a merge of the entity
+    @Column(name = "ANSWER_COUNT", insertable = false, updatable = false)
+    private Integer answerCount;
+
+    @Column(name = "LAST_ANSWER_AT", insertable = false, updatable = false)
+    private ZonedDateTime lastAnswerAt;
+
     public Integer getId() {
         return id;
     }
@@ -78,4 +100,12 @@ public class QuestionEntity implements Serializable {
     public void setUser(UserEntity user) {
         this.user = user;
     }
+
+    public Integer getAnswerCount() {
+        return answerCount;
+    }
+
+    public ZonedDateTime getLastAnswerAt() {
+        return lastAnswerAt;
+    }
 }
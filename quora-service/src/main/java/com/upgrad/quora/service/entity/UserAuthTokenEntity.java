@@ -11,20 +11,29 @@ import java.time.ZonedDateTime;
 @NamedQueries(
         {
                 @NamedQuery(name = "userAuthTokenByAccessToken",
-                        query = "select ua from UserAuthTokenEntity ua where ua.accessToken = :accessToken ")
+                        query = "select ua from UserAuthTokenEntity ua join fetch ua.user where ua.accessToken = :accessToken "),
+                @NamedQuery(name = "userAuthTokenByAccessTokenAndLoginAt",
+                        query = "select ua from UserAuthTokenEntity ua join fetch ua.user where ua.accessToken = :accessToken and ua.loginAt >= :loginFrom and ua.loginAt < :loginTo "),
+                @NamedQuery(name = "revokedUserAuthsSince",
+                        query = "select ua.accessToken, ua.expiresAt, ua.logoutAt from UserAuthTokenEntity ua where ua.logoutAt >= :since and ua.expiresAt > :now "),
+                @NamedQuery(name = "reapableUserAuthIds",
+                        query = "select ua.id from UserAuthTokenEntity ua where ua.expiresAt < :expiredBefore or (ua.logoutAt < :loggedOutBefore and ua.expiresAt < :now) "),
+                @NamedQuery(name = "deleteUserAuthsByIds",
+                        query = "delete from UserAuthTokenEntity ua where ua.id in :ids ")
         }
 )
 public class UserAuthTokenEntity  implements Serializable {
     @Id
     @Column(name = "ID")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_auth_id_seq")
+    @SequenceGenerator(name = "user_auth_id_seq", sequenceName = "user_auth_id_seq", allocationSize = 50)
     private Integer id;
 
     @Column(name = "UUID")
     @Size(max = 64)
     private String uuid;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "USER_ID")
     private UserEntity user;
 
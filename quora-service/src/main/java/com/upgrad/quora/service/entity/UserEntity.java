@@ -4,26 +4,33 @@ import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
+import org.hibernate.annotations.NaturalId;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.io.Serializable;
+import java.time.ZonedDateTime;
 
 @Entity
 @Table(name = "USERS", schema = "public")
 @NamedQueries({
         @NamedQuery(name = "userByUuid", query = "select u from UserEntity u where u.uuid = :uuid"),
         @NamedQuery(name = "userByUserName", query = "select u from UserEntity u where u.userName =:username"),
-        @NamedQuery(name = "userByEmail", query = "select u from UserEntity u where u.email =:email")
+        @NamedQuery(name = "userByEmail", query = "select u from UserEntity u where u.email =:email"),
+        @NamedQuery(name = "userIdsByUuids", query = "select u.uuid, u.id from UserEntity u where u.uuid in :uuids"),
+        @NamedQuery(name = "updateUserLoginAudit", query = "update UserEntity u set u.lastLoginClient = case when u.lastLoginAt is null or u.lastLoginAt < :lastLoginAt then :client else u.lastLoginClient end, "
+                + "u.lastLoginAt = function('greatest', u.lastLoginAt, :lastLoginAt), u.loginCount = u.loginCount + :logins where u.id = :id")
 })
 public class UserEntity implements Serializable {
 
     @Id
     @Column(name = "ID")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id_seq")
+    @SequenceGenerator(name = "users_id_seq", sequenceName = "users_id_seq", allocationSize = 50)
     private Integer id;
 
+    @NaturalId
     @Column(name = "UUID")
     @Size(max = 64)
     private String uuid;
@@ -78,6 +85,16 @@ public class UserEntity implements Serializable {
     @Size(max = 50)
     private String contactNumber;
 
+    //the login audit columns are only written by the updateUserLoginAudit query, never by a merge of the entity
+    @Column(name = "LAST_LOGIN_AT", insertable = false, updatable = false)
+    private ZonedDateTime lastLoginAt;
+
+    @Column(name = "LOGIN_COUNT", insertable = false, updatable = false)
+    private Integer loginCount;
+
+    @Column(name = "LAST_LOGIN_CLIENT", insertable = false, updatable = false)
+    private String lastLoginClient;
+
 
     public Integer getId() {
         return id;
@@ -163,6 +180,18 @@ public class UserEntity implements Serializable {
         this.contactNumber = contactNumber;
     }
 
+    public ZonedDateTime getLastLoginAt() {
+        return lastLoginAt;
+    }
+
+    public Integer getLoginCount() {
+        return loginCount;
+    }
+
+    public String getLastLoginClient() {
+        return lastLoginClient;
+    }
+
     public String getUserName() {
         return userName;
     }
@@ -194,12 +223,18 @@ public class UserEntity implements Serializable {
 
     @Override
     public boolean equals(Object obj) {
-        return new EqualsBuilder().append(this, obj).isEquals();
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof UserEntity)) {
+            return false;
+        }
+        return new EqualsBuilder().append(uuid, ((UserEntity) obj).getUuid()).isEquals();
     }
 
     @Override
     public int hashCode() {
-        return new HashCodeBuilder().append(this).hashCode();
+        return new HashCodeBuilder().append(uuid).hashCode();
     }
 
     @Override
@@ -0,0 +1,73 @@
+package com.upgrad.quora.service.entity;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+
+/**
+ * Revocation of the access tokens of a user issued up to revokedAt, written when the user is deleted or its role
+ * changes and read by the TokenRevocationSet.
+ */
+@Entity
+@Table(name = "user_revocation", schema = "public")
+@NamedQueries(
+        {
+                @NamedQuery(name = "userRevocationsSince",
+                        query = "select ur.userUuid, ur.revokedAt, ur.expiresAt from UserRevocationEntity ur where ur.revokedAt >= :since and ur.expiresAt > :now ")
+        }
+)
+public class UserRevocationEntity implements Serializable {
+
+    @Id
+    @Column(name = "ID")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_revocation_id_seq")
+    @SequenceGenerator(name = "user_revocation_id_seq", sequenceName = "user_revocation_id_seq", allocationSize = 1)
+    private Integer id;
+
+    @Column(name = "USER_UUID")
+    @NotNull
+    @Size(max = 200)
+    private String userUuid;
+
+    @Column(name = "REVOKED_AT")
+    @NotNull
+    private ZonedDateTime revokedAt;
+
+    @Column(name = "EXPIRES_AT")
+    @NotNull
+    private ZonedDateTime expiresAt;
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getUserUuid() {
+        return userUuid;
+    }
+
+    public void setUserUuid(String userUuid) {
+        this.userUuid = userUuid;
+    }
+
+    public ZonedDateTime getRevokedAt() {
+        return revokedAt;
+    }
+
+    public void setRevokedAt(ZonedDateTime revokedAt) {
+        this.revokedAt = revokedAt;
+    }
+
+    public ZonedDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(ZonedDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
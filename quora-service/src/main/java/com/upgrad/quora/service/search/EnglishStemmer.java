@@ -0,0 +1,94 @@
+package com.upgrad.quora.service.search;
+
+/**
+ * Light English stemmer that reduces the inflections of a word to a common stem, so that "questions", "questioned"
+ * and "questioning" all match "question". Only plurals, past tense, -ing forms, a final e and a few common
+ * derivational suffixes are stripped, which keeps the stems readable and rarely conflates unrelated words.
+ * The stems need not be words; the same stemmer is applied to indexed text and queries.
+ */
+final class EnglishStemmer {
+
+    private static final int MIN_STEM_LENGTH = 3;
+
+    private static final String[][] DERIVATIONAL_SUFFIXES = {
+            {"ational", "ate"}, {"ization", "ize"}, {"fulness", "ful"}, {"iveness", "ive"}, {"ousness", "ous"},
+            {"ation", "ate"}, {"ness", ""}, {"ment", ""}, {"ly", ""}
+    };
+
+    private EnglishStemmer() {
+    }
+
+    /**
+     * @param word lower case word
+     * @return stem of the word
+     */
+    static String stem(final String word) {
+        if (word.length() <= MIN_STEM_LENGTH) {
+            return word;
+        }
+        String stem = stripPlural(word);
+        stem = stripVerbSuffix(stem);
+        stem = stripDerivationalSuffix(stem);
+        if (stem.length() > MIN_STEM_LENGTH && stem.endsWith("e")) {
+            stem = stem.substring(0, stem.length() - 1);
+        }
+        return stem;
+    }
+
+    private static String stripPlural(final String word) {
+        if (word.endsWith("ies") && word.length() > 4) {
+            return word.substring(0, word.length() - 3) + "y";
+        }
+        if (word.endsWith("sses") || word.endsWith("xes") || word.endsWith("zes") || word.endsWith("ches") || word.endsWith("shes")) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (word.endsWith("s") && !word.endsWith("ss") && !word.endsWith("us") && !word.endsWith("is")) {
+            return word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+
+    private static String stripVerbSuffix(final String word) {
+        for (String suffix : new String[]{"ing", "ed"}) {
+            if (word.endsWith(suffix)) {
+                String stem = word.substring(0, word.length() - suffix.length());
+                if (stem.length() >= MIN_STEM_LENGTH && hasVowel(stem)) {
+                    return undouble(stem);
+                }
+            }
+        }
+        return word;
+    }
+
+    private static String stripDerivationalSuffix(final String word) {
+        for (String[] suffix : DERIVATIONAL_SUFFIXES) {
+            if (word.endsWith(suffix[0]) && word.length() - suffix[0].length() >= MIN_STEM_LENGTH) {
+                return word.substring(0, word.length() - suffix[0].length()) + suffix[1];
+            }
+        }
+        return word;
+    }
+
+    //running -> run, but not falling -> fal
+    private static String undouble(final String stem) {
+        int length = stem.length();
+        char last = stem.charAt(length - 1);
+        if (last == stem.charAt(length - 2) && last != 'l' && last != 's' && last != 'z' && !isVowel(last)) {
+            return stem.substring(0, length - 1);
+        }
+        return stem;
+    }
+
+    private static boolean hasVowel(final String stem) {
+        for (int i = 0; i < stem.length(); i++) {
+            if (isVowel(stem.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isVowel(final char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u' || c == 'y';
+    }
+}
@@ -0,0 +1,297 @@
+package com.upgrad.quora.service.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index with BM25 ranking. A document has a value, which is returned by searches, and any number
+ * of text fields, each under a key that is unique across the index; the terms of all fields of a document are ranked
+ * together. Fields can be put, replaced and removed one at a time, so a document is updated incrementally.
+ * A document can get fields before its value is known, it is not found by searches until it has a value.
+ * Searches share a read lock and updates take the write lock, so a search never sees a half applied update.
+ *
+ * @param <T> type of the document values
+ */
+public class InvertedIndex<T> {
+
+    private final double k1;
+
+    private final double b;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    //term -> document id -> frequency of the term in the document
+    private final Map<String, Map<Integer, Integer>> postings = new HashMap<String, Map<Integer, Integer>>();
+
+    private final Map<Integer, Document<T>> documents = new HashMap<Integer, Document<T>>();
+
+    //field key -> id of the document holding the field
+    private final Map<String, Integer> fieldDocuments = new HashMap<String, Integer>();
+
+    private long totalLength;
+
+    /**
+     * @param k1 BM25 term frequency saturation, usually between 1.2 and 2
+     * @param b  BM25 document length normalization, between 0 (none) and 1 (full)
+     */
+    public InvertedIndex(final double k1, final double b) {
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    /**
+     * Sets the value of the document, keeping its fields.
+     *
+     * @param documentId id of the document
+     * @param value      value returned when the document is found
+     */
+    public void putDocument(final Integer documentId, final T value) {
+        lock.writeLock().lock();
+        try {
+            document(documentId).value = value;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param documentId id of the document
+     * @return true if the document has a value, so that it can be found by searches
+     */
+    public boolean containsDocument(final Integer documentId) {
+        lock.readLock().lock();
+        try {
+            Document<T> document = documents.get(documentId);
+            return document != null && document.value != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the document with all of its fields.
+     *
+     * @param documentId id of the document
+     */
+    public void removeDocument(final Integer documentId) {
+        lock.writeLock().lock();
+        try {
+            Document<T> document = documents.get(documentId);
+            if (document == null) {
+                return;
+            }
+            for (String fieldKey : new ArrayList<String>(document.fields.keySet())) {
+                removeFieldLocked(fieldKey);
+            }
+            documents.remove(documentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Puts the text of a field of the document, replacing the field if it exists, also if it belongs to another document.
+     *
+     * @param documentId id of the document
+     * @param fieldKey   key of the field, unique across the index
+     * @param text       text of the field
+     */
+    public void putField(final Integer documentId, final String fieldKey, final String text) {
+        Map<String, Integer> termFrequencies = new HashMap<String, Integer>();
+        List<String> terms = TextAnalyzer.analyze(text);
+        for (String term : terms) {
+            termFrequencies.merge(term, 1, Integer::sum);
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeFieldLocked(fieldKey);
+            Document<T> document = document(documentId);
+            document.fields.put(fieldKey, termFrequencies);
+            document.length += terms.size();
+            totalLength += terms.size();
+            fieldDocuments.put(fieldKey, documentId);
+            for (Map.Entry<String, Integer> termFrequency : termFrequencies.entrySet()) {
+                int frequency = document.termFrequencies.merge(termFrequency.getKey(), termFrequency.getValue(), Integer::sum);
+                postings.computeIfAbsent(termFrequency.getKey(), term -> new HashMap<Integer, Integer>()).put(documentId, frequency);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the field from the document holding it, if any.
+     *
+     * @param fieldKey key of the field
+     */
+    public void removeField(final String fieldKey) {
+        lock.writeLock().lock();
+        try {
+            removeFieldLocked(fieldKey);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks the documents containing any of the query terms by BM25 and returns the best ones.
+     * Only the postings of the query terms are read.
+     *
+     * @param query text of the query, analyzed like the fields
+     * @param limit maximum number of hits
+     * @return hits, best first; documents with equal scores are ordered by id, highest first
+     */
+    public List<SearchHit<T>> search(final String query, final int limit) {
+        return search(query, limit, Double.POSITIVE_INFINITY, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Like search(query, limit), but only returns the hits ranked after the given one, so that a long result can be
+     * read page by page; a page starts after the score and id of the last hit of the previous page.
+     *
+     * @param query      text of the query, analyzed like the fields
+     * @param limit      maximum number of hits
+     * @param afterScore score of the hit to start after
+     * @param afterId    document id of the hit to start after
+     * @return hits ranked after the given one, best first
+     */
+    public List<SearchHit<T>> search(final String query, final int limit, final double afterScore, final int afterId) {
+        LinkedHashSet<String> queryTerms = new LinkedHashSet<String>(TextAnalyzer.analyze(query));
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return new ArrayList<SearchHit<T>>();
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            if (documentCount == 0) {
+                return new ArrayList<SearchHit<T>>();
+            }
+            double averageLength = Math.max(1.0, (double) totalLength / documentCount);
+
+            Map<Integer, Double> scores = new HashMap<Integer, Double>();
+            for (String term : queryTerms) {
+                Map<Integer, Integer> posting = postings.get(term);
+                if (posting == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (documentCount - posting.size() + 0.5) / (posting.size() + 0.5));
+                for (Map.Entry<Integer, Integer> entry : posting.entrySet()) {
+                    double frequency = entry.getValue();
+                    double length = documents.get(entry.getKey()).length;
+                    double score = idf * frequency * (k1 + 1) / (frequency + k1 * (1 - b + b * length / averageLength));
+                    scores.merge(entry.getKey(), score, Double::sum);
+                }
+            }
+
+            Comparator<Map.Entry<Integer, Double>> byRank = Comparator.<Map.Entry<Integer, Double>>comparingDouble(Map.Entry::getValue)
+                    .thenComparing(Map.Entry::getKey);
+            PriorityQueue<Map.Entry<Integer, Double>> best = new PriorityQueue<Map.Entry<Integer, Double>>(limit + 1, byRank);
+            for (Map.Entry<Integer, Double> score : scores.entrySet()) {
+                if (documents.get(score.getKey()).value == null) {
+                    continue;
+                }
+                if (score.getValue() > afterScore || (score.getValue() == afterScore && score.getKey() >= afterId)) {
+                    continue;
+                }
+                best.add(score);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+
+            List<SearchHit<T>> hits = new ArrayList<SearchHit<T>>(best.size());
+            while (!best.isEmpty()) {
+                Map.Entry<Integer, Double> score = best.poll();
+                hits.add(new SearchHit<T>(score.getKey(), documents.get(score.getKey()).value, score.getValue()));
+            }
+            Collections.reverse(hits);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every document.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            fieldDocuments.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int getDocumentCount() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Document<T> document(final Integer documentId) {
+        return documents.computeIfAbsent(documentId, id -> new Document<T>());
+    }
+
+    private void removeFieldLocked(final String fieldKey) {
+        Integer documentId = fieldDocuments.remove(fieldKey);
+        if (documentId == null) {
+            return;
+        }
+        Document<T> document = documents.get(documentId);
+        Map<String, Integer> termFrequencies = document.fields.remove(fieldKey);
+        for (Map.Entry<String, Integer> termFrequency : termFrequencies.entrySet()) {
+            String term = termFrequency.getKey();
+            int frequency = document.termFrequencies.get(term) - termFrequency.getValue();
+            document.length -= termFrequency.getValue();
+            totalLength -= termFrequency.getValue();
+            Map<Integer, Integer> posting = postings.get(term);
+            if (frequency > 0) {
+                document.termFrequencies.put(term, frequency);
+                posting.put(documentId, frequency);
+            } else {
+                document.termFrequencies.remove(term);
+                posting.remove(documentId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static final class Document<T> {
+
+        private T value;
+
+        private final Map<String, Map<String, Integer>> fields = new HashMap<String, Map<String, Integer>>();
+
+        private final Map<String, Integer> termFrequencies = new HashMap<String, Integer>();
+
+        private int length;
+    }
+}
@@ -0,0 +1,39 @@
+package com.upgrad.quora.service.search;
+
+/**
+ * A document found by a search, with its relevance to the query.
+ *
+ * @param <T> type of the document value
+ */
+public class SearchHit<T> {
+
+    private final Integer id;
+
+    private final T value;
+
+    private final double score;
+
+    public SearchHit(final Integer id, final T value, final double score) {
+        this.id = id;
+        this.value = value;
+        this.score = score;
+    }
+
+    /**
+     * @return id of the document, which orders hits of equal scores
+     */
+    public Integer getId() {
+        return id;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * @return relevance of the document to the query, higher is better; only comparable between hits of one search
+     */
+    public double getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,56 @@
+package com.upgrad.quora.service.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Turns text into the terms of the InvertedIndex: the text is split into runs of letters and digits, which are
+ * lower cased, stripped of stop words and stemmed by the EnglishStemmer.
+ */
+public final class TextAnalyzer {
+
+    private static final int MAX_TERM_LENGTH = 50;
+
+    private static final Set<String> STOP_WORDS = new HashSet<String>(Arrays.asList(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "can", "do", "does", "for", "from", "has", "have",
+            "how", "i", "if", "in", "is", "it", "its", "me", "my", "no", "not", "of", "on", "or", "so", "that", "the",
+            "their", "then", "there", "these", "this", "to", "was", "we", "were", "what", "when", "where", "which",
+            "who", "why", "will", "with", "you", "your"));
+
+    private TextAnalyzer() {
+    }
+
+    /**
+     * @param text text to analyze, may be null
+     * @return terms of the text in order, repeated terms included
+     */
+    public static List<String> analyze(final String text) {
+        List<String> terms = new ArrayList<String>();
+        if (text == null) {
+            return terms;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                addTerm(terms, text.substring(start, i));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    private static void addTerm(final List<String> terms, final String word) {
+        String lowerCase = word.toLowerCase(Locale.ROOT);
+        if (lowerCase.length() > MAX_TERM_LENGTH || STOP_WORDS.contains(lowerCase)) {
+            return;
+        }
+        terms.add(EnglishStemmer.stem(lowerCase));
+    }
+}